@@ -0,0 +1,118 @@
+package de.henninglanghorst.functional.benchmark;
+
+import de.henninglanghorst.functional.example.model.Person;
+import de.henninglanghorst.functional.sql.ConnectionPool;
+import de.henninglanghorst.functional.sql.ParameterizedStatement;
+import de.henninglanghorst.functional.sql.function.Function;
+import de.henninglanghorst.functional.util.Either;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static de.henninglanghorst.functional.example.PersonDbFunctions.createTablePerson;
+import static de.henninglanghorst.functional.example.PersonDbFunctions.insertPersons;
+import static de.henninglanghorst.functional.example.PersonDbFunctions.selectAllPersons;
+import static de.henninglanghorst.functional.example.PersonDbFunctions.selectPersonWithId;
+import static de.henninglanghorst.functional.sql.DatabaseOperationFunctions.doInDatabase;
+import static de.henninglanghorst.functional.sql.DatabaseStatementFunctions.statement;
+import static de.henninglanghorst.functional.sql.DatabaseTransactionFunctions.withinTransaction;
+import static de.henninglanghorst.functional.sql.DatabaseUpdateFunctions.batchedDatabaseUpdates;
+import static de.henninglanghorst.functional.sql.DatabaseUpdateFunctions.multipleDatabaseUpdates;
+
+/**
+ * Benchmarks for the database functions against an in-memory H2 database.
+ *
+ * @author Henning Langhorst
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatabaseFunctionsBenchmark {
+
+    @Param("100")
+    private int rows;
+
+    private ConnectionPool connectionPool;
+    private List<Function<Connection, java.sql.PreparedStatement>> updateStatements;
+    private List<ParameterizedStatement> parameterizedUpdateStatements;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connectionPool = ConnectionPool
+                .builder(() -> DriverManager.getConnection("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1"))
+                .maximumSize(1)
+                .build();
+        doInDatabase(connectionPool, createTablePerson());
+        final Person[] persons = new Person[rows];
+        for (int i = 0; i < rows; i++) {
+            persons[i] = new Person(i, "First" + i, "Last" + i, LocalDate.of(1970, 1, 1).plusDays(i));
+        }
+        doInDatabase(connectionPool, withinTransaction(insertPersons(persons)));
+
+        updateStatements = new ArrayList<>();
+        parameterizedUpdateStatements = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final ParameterizedStatement updateStatement =
+                    statement("update Person set lastName = ? where id = ?", "Updated" + i, i);
+            updateStatements.add(updateStatement);
+            parameterizedUpdateStatements.add(updateStatement);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        doInDatabase(connectionPool, connection -> connection.createStatement().execute("drop table Person"));
+        connectionPool.close();
+    }
+
+    @Benchmark
+    public Either<Boolean, SQLException> doInDatabaseOverhead() {
+        return doInDatabase(connectionPool, Connection::getAutoCommit);
+    }
+
+    @Benchmark
+    public Either<Boolean, SQLException> withinTransactionOverhead() {
+        return doInDatabase(connectionPool, withinTransaction(Connection::getAutoCommit));
+    }
+
+    @Benchmark
+    public Either<List<Person>, SQLException> multipleRowExtraction() {
+        return doInDatabase(connectionPool, selectAllPersons());
+    }
+
+    @Benchmark
+    public Either<Person, SQLException> singleRowExtraction() {
+        return doInDatabase(connectionPool, selectPersonWithId(rows / 2));
+    }
+
+    @Benchmark
+    public Either<int[], SQLException> multipleDatabaseUpdatesOfTenRows() {
+        return doInDatabase(connectionPool, withinTransaction(multipleDatabaseUpdates(updateStatements)));
+    }
+
+    @Benchmark
+    public Either<int[], SQLException> batchedDatabaseUpdatesOfTenRows() {
+        return doInDatabase(connectionPool, withinTransaction(batchedDatabaseUpdates(parameterizedUpdateStatements, 10)));
+    }
+}
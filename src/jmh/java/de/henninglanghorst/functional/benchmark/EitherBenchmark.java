@@ -0,0 +1,80 @@
+package de.henninglanghorst.functional.benchmark;
+
+import de.henninglanghorst.functional.util.Either;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for creating and handling {@link Either} values.
+ *
+ * @author Henning Langhorst
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EitherBenchmark {
+
+    private final String value = "value";
+    private final SQLException exception = new SQLException("error");
+    private final Either<String, SQLException> right = Either.right(exception);
+
+    @Benchmark
+    public Either<String, SQLException> createLeft() {
+        return Either.left(value);
+    }
+
+    @Benchmark
+    public Either<String, SQLException> createRight() {
+        return Either.right(exception);
+    }
+
+    @Benchmark
+    public void handleLeft(final Blackhole blackhole) {
+        final Either<String, SQLException> either = Either.left(value);
+        either.handle(blackhole::consume, blackhole::consume);
+    }
+
+    @Benchmark
+    public String unwrapLeft() {
+        final Either<String, SQLException> either = Either.left(value);
+        return either.isLeft() ? either.left().get() : null;
+    }
+
+    /**
+     * Chain of combinators on a left value, whose intermediate instances should be removed by escape analysis (see
+     * {@code gc.alloc.rate.norm} with {@code -prof gc}).
+     */
+    @Benchmark
+    public int mapFlatMapFoldLeft() {
+        return Either.<String, SQLException>left(value)
+                .map(String::length)
+                .flatMap(length -> Either.<Integer, SQLException>left(length * 2))
+                .mapRight(e -> new SQLException("wrapped", e))
+                .fold(length -> length, e -> -1);
+    }
+
+    /**
+     * Chain of combinators on a shared right value, which must not allocate at all.
+     */
+    @Benchmark
+    public int mapFlatMapGetOrElseRight() {
+        return right
+                .map(String::length)
+                .flatMap(length -> Either.<Integer, SQLException>left(length * 2))
+                .getOrElse(-1);
+    }
+}
@@ -1,13 +1,15 @@
 package de.henninglanghorst.functional.example;
 
 import de.henninglanghorst.functional.example.model.Person;
+import de.henninglanghorst.functional.sql.ConnectionPool;
 import de.henninglanghorst.functional.sql.function.Supplier;
 import de.henninglanghorst.functional.util.Either;
-import org.h2.jdbcx.JdbcConnectionPool;
+import de.henninglanghorst.functional.util.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.Month;
@@ -34,9 +36,12 @@ public class Main {
 
     public static void main(String[] args) {
 
-        JdbcConnectionPool connectionPool = JdbcConnectionPool.create("jdbc:h2:~/testdb", "sa", "");
+        ConnectionPool connectionPool = ConnectionPool
+                .builder(() -> DriverManager.getConnection("jdbc:h2:~/testdb", "sa", ""))
+                .maximumSize(10)
+                .build();
 
-        Supplier<Connection> connectionFactory = connectionPool::getConnection;
+        Supplier<Connection> connectionFactory = connectionPool;
 
         Either<Integer, SQLException> dropTableResult = doInDatabase(connectionFactory, dropTablePerson());
         dropTableResult.handle(objects -> LOGGER.info("Success " + objects), Main::logError);
@@ -55,22 +60,22 @@ public class Main {
                 objects -> LOGGER.info("Inserted rows: " + Arrays.toString(objects)),
                 Main::logError);
 
-        Either<List<Person>, SQLException> selectAllPersonsResult =
+        Either<Pair<List<Person>, Person>, SQLException> selectPersonsResult =
                 doInDatabase(
                         connectionFactory,
-                        selectAllPersons());
-        selectAllPersonsResult.handle(
-                persons -> LOGGER.info("All Persons selected:" + listToString(persons)),
+                        selectAllPersons().zip(selectPersonWithId(1)));
+        selectPersonsResult.handle(
+                persons -> {
+                    LOGGER.info("All Persons selected:" + listToString(persons.getFirst()));
+                    LOGGER.info("Person with Id 1 selected: " + persons.getSecond());
+                },
                 Main::logError);
 
-
-        Either<Person, SQLException> selectPersonWithId1Result = doInDatabase(connectionFactory, selectPersonWithId(1));
-        selectPersonWithId1Result.handle(
-                person -> LOGGER.info("Person with Id 1 selected: " + person),
-                Main::logError);
+        selectAllPersonsPaged(connectionFactory, 1).forEach(
+                page -> LOGGER.info("Page of persons selected:" + listToString(page)));
 
 
-        connectionPool.dispose();
+        connectionPool.close();
     }
 
 
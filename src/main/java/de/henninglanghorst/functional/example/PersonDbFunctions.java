@@ -1,18 +1,32 @@
 package de.henninglanghorst.functional.example;
 
 import de.henninglanghorst.functional.example.model.Person;
+import de.henninglanghorst.functional.sql.BulkLoadProgress;
+import de.henninglanghorst.functional.sql.BulkLoader;
+import de.henninglanghorst.functional.sql.ExtractionStatistics;
+import de.henninglanghorst.functional.sql.KeyRange;
+import de.henninglanghorst.functional.sql.MultiRowStatements;
+import de.henninglanghorst.functional.sql.RowBinder;
+import de.henninglanghorst.functional.sql.function.Consumer;
 import de.henninglanghorst.functional.sql.function.Function;
+import de.henninglanghorst.functional.sql.function.Supplier;
 import lombok.Data;
 
 import java.sql.*;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Stream;
 
+import static de.henninglanghorst.functional.sql.DatabasePaginationFunctions.keysetPages;
 import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.*;
+import static de.henninglanghorst.functional.sql.DatabaseStatementFunctions.multiRowInsert;
+import static de.henninglanghorst.functional.sql.DatabaseStatementFunctions.placeholders;
 import static de.henninglanghorst.functional.sql.DatabaseStatementFunctions.statement;
 import static de.henninglanghorst.functional.sql.DatabaseUpdateFunctions.databaseUpdate;
-import static de.henninglanghorst.functional.sql.DatabaseUpdateFunctions.multipleDatabaseUpdates;
-import static java.util.stream.Collectors.toList;
+import static de.henninglanghorst.functional.sql.DatabaseUpdateFunctions.batchedDatabaseUpdates;
+import static de.henninglanghorst.functional.sql.KeyRange.keyRange;
+import static de.henninglanghorst.functional.sql.RowMappers.rowMapper;
+import static java.util.Arrays.asList;
 
 /**
  * Contains database functions relating to database table {@code Person}.
@@ -22,6 +36,17 @@ import static java.util.stream.Collectors.toList;
 @Data
 public final class PersonDbFunctions {
 
+    private static final int INSERT_BATCH_SIZE = 1000;
+    private static final String INSERT_PERSON_SQL = "insert into Person values (?, ?, ?, ?);";
+    private static final Function<ResultSet, Person> PERSON_ROW_MAPPER = rowMapper(Person.class);
+    private static final RowBinder<Person> PERSON_BINDER = (person, parameters) -> parameters
+            .setInt(person.getId())
+            .setString(person.getFirstName())
+            .setString(person.getLastName())
+            .setDate(person.getBirthday());
+    private static final MultiRowStatements<Person> INSERT_PERSONS =
+            multiRowInsert("Person", PERSON_BINDER, "id", "firstName", "lastName", "birthday");
+
     private PersonDbFunctions() {
     }
 
@@ -37,40 +62,71 @@ public final class PersonDbFunctions {
     }
 
     public static Function<Connection, int[]> insertPersons(Person... persons) {
-        return
-                multipleDatabaseUpdates(
-                        Stream.of(persons)
-                                .map(PersonDbFunctions::insertPersonStatement)
-                                .collect(toList()));
+        return batchedDatabaseUpdates(INSERT_PERSONS.statements(asList(persons)), INSERT_BATCH_SIZE);
     }
 
-    private static Function<Connection, PreparedStatement> insertPersonStatement(final Person person) {
-        return statement("insert into Person values (?, ?, ?, ?);",
-                person.getId(),
-                person.getFirstName(),
-                person.getLastName(),
-                Date.valueOf(person.getBirthday()));
+    public static Function<Connection, BulkLoadProgress> bulkLoadPersons(final Stream<Person> persons,
+                                                                         final long startOffset) {
+        return BulkLoader.builder(INSERT_PERSON_SQL, PERSON_BINDER)
+                .batchSize(INSERT_BATCH_SIZE)
+                .startOffset(startOffset)
+                .build()
+                .load(persons);
     }
 
     public static Function<Connection, List<Person>> selectAllPersons() {
         return databaseQuery(
                 statement("select * from Person"),
-                multipleRowExtraction(PersonDbFunctions::mapResultSetToPerson));
+                multipleRowExtraction(PERSON_ROW_MAPPER));
+    }
+
+    public static Function<Connection, Stream<Person>> streamAllPersons(final int fetchSize) {
+        return streamingQuery(
+                statement("select * from Person"),
+                PERSON_ROW_MAPPER,
+                fetchSize);
+    }
+
+    public static Function<Connection, ExtractionStatistics> forEachPerson(final Consumer<Person> personConsumer) {
+        return databaseQuery(
+                statement("select * from Person"),
+                rowCallbackExtraction(PERSON_ROW_MAPPER, personConsumer));
     }
 
     public static Function<Connection, Person> selectPersonWithId(int id) {
         return databaseQuery(
-                statement("select * from Person where id = ?", id),
-                singleRowExtraction(PersonDbFunctions::mapResultSetToPerson));
+                statement("select * from Person where id = ?", parameters -> parameters.setInt(id)),
+                singleRowExtraction(PERSON_ROW_MAPPER));
     }
 
-    private static Person mapResultSetToPerson(final ResultSet resultSet) throws SQLException {
-        return new Person(
-                resultSet.getInt("id"),
-                resultSet.getString("firstName"),
-                resultSet.getString("lastName"),
-                resultSet.getDate("birthday").toLocalDate());
+    public static Function<Connection, Optional<Person>> findPersonWithId(int id) {
+        return databaseQuery(
+                statement("select * from Person where id = ?", parameters -> parameters.setInt(id)),
+                optionalRowExtraction(PERSON_ROW_MAPPER));
     }
 
+    public static Function<Connection, List<Person>> selectPersonsWithIdBetween(final KeyRange idRange) {
+        return databaseQuery(
+                statement("select * from Person where id between ? and ? order by id",
+                        parameters -> parameters.setLong(idRange.getFrom()).setLong(idRange.getTo())),
+                multipleRowExtraction(PERSON_ROW_MAPPER));
+    }
+
+    public static Stream<List<Person>> selectAllPersonsPaged(final Supplier<Connection> connectionFactory,
+                                                             final int pageSize) {
+        return keysetPages(connectionFactory, "Person", "id", PERSON_ROW_MAPPER, Person::getId, pageSize);
+    }
+
+    public static Function<Connection, KeyRange> selectPersonIdRange() {
+        return databaseQuery(
+                statement("select min(id), max(id) from Person"),
+                singleRowExtraction(resultSet -> keyRange(resultSet.getLong(1), resultSet.getLong(2))));
+    }
+
+    public static Function<Connection, List<Person>> selectPersonsWithIds(final List<Integer> ids) {
+        return databaseQuery(
+                statement("select * from Person where id in (" + placeholders(ids.size()) + ")", ids.toArray()),
+                multipleRowExtraction(PERSON_ROW_MAPPER));
+    }
 
 }
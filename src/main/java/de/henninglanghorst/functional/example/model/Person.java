@@ -2,6 +2,7 @@ package de.henninglanghorst.functional.example.model;
 
 import lombok.Data;
 
+import java.beans.ConstructorProperties;
 import java.time.LocalDate;
 
 /**
@@ -15,6 +16,7 @@ public final class Person {
     private final String lastName;
     private final LocalDate birthday;
 
+    @ConstructorProperties({"id", "firstName", "lastName", "birthday"})
     public Person(final int id, final String firstName, final String lastName, final LocalDate birthday) {
         this.id = id;
         this.firstName = firstName;
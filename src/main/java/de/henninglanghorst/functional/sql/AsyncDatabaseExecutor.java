@@ -0,0 +1,186 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Function;
+import de.henninglanghorst.functional.sql.function.Supplier;
+import de.henninglanghorst.functional.util.Either;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static de.henninglanghorst.functional.sql.DatabaseOperationFunctions.doInDatabase;
+
+/**
+ * Executes database operations asynchronously like
+ * {@link DatabaseOperationFunctions#doInDatabase(Supplier, Function)} on a bounded executor.
+ * <p>
+ * The number of operations in flight (queued or running) is limited. Operations submitted beyond that limit are not
+ * queued but completed immediately with an {@link SQLTransientException}, so callers cannot overload the connection
+ * pool. Operations can be given a timeout after which their future is completed with an {@link SQLTimeoutException}.
+ * The timeout is also applied to the operation as {@link Deadline}, so its running statements are cancelled through
+ * JDBC. Worker threads are never interrupted, since some drivers close their files or sockets on interrupts.
+ *
+ * @author Henning Langhorst
+ */
+public final class AsyncDatabaseExecutor implements AutoCloseable {
+
+    private final Supplier<Connection> connectionFactory;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timeoutScheduler;
+    private final Semaphore inFlightPermits;
+    private final int maxInFlight;
+
+    /**
+     * Creates an executor with a fixed number of worker threads.
+     *
+     * @param connectionFactory {@link Supplier} providing the connections to be used.
+     * @param threads           Number of worker threads.
+     * @param maxInFlight       Maximum number of operations queued or running at the same time.
+     */
+    public AsyncDatabaseExecutor(final Supplier<Connection> connectionFactory, final int threads, final int maxInFlight) {
+        this(connectionFactory, Executors.newFixedThreadPool(threads, daemonThreads("database-async")), maxInFlight);
+    }
+
+    /**
+     * Creates an executor running operations on the given executor service, which is shut down on {@link #close()}.
+     *
+     * @param connectionFactory {@link Supplier} providing the connections to be used.
+     * @param executor          Executor running the operations.
+     * @param maxInFlight       Maximum number of operations queued or running at the same time.
+     */
+    public AsyncDatabaseExecutor(final Supplier<Connection> connectionFactory,
+                                 final ExecutorService executor,
+                                 final int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Maximum number of operations in flight must be positive: " + maxInFlight);
+        }
+        this.connectionFactory = connectionFactory;
+        this.executor = executor;
+        this.timeoutScheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("database-async-timeout"));
+        this.inFlightPermits = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Applies a function on a database connection asynchronously.
+     *
+     * @param dbFunction Function applied to the connection.
+     * @param <R>        Type of the return value after successful execution.
+     * @return Future completed with either the return value of type {@link R} or the {@link SQLException}.
+     */
+    public <R> CompletableFuture<Either<R, SQLException>> submit(final Function<Connection, R> dbFunction) {
+        final Operation<R> operation = new Operation<>(dbFunction, null);
+        submitOperation(operation);
+        return operation.result;
+    }
+
+    /**
+     * Applies a function on a database connection asynchronously, giving up after the given timeout. Statements still
+     * running when the timeout passes are cancelled, see
+     * {@link DatabaseOperationFunctions#doInDatabase(Supplier, Function, Deadline)}.
+     *
+     * @param dbFunction Function applied to the connection.
+     * @param timeout    Time after which the returned future is completed with an {@link SQLTimeoutException}.
+     * @param <R>        Type of the return value after successful execution.
+     * @return Future completed with either the return value of type {@link R} or the {@link SQLException}.
+     */
+    public <R> CompletableFuture<Either<R, SQLException>> submit(final Function<Connection, R> dbFunction,
+                                                                 final Duration timeout) {
+        final Operation<R> operation = new Operation<>(dbFunction, Deadline.after(timeout));
+        submitOperation(operation);
+        if (!operation.result.isDone()) {
+            final ScheduledFuture<?> timeoutTask = timeoutScheduler.schedule(
+                    () -> operation.abort(new SQLTimeoutException("Database operation timed out after " + timeout)),
+                    timeout.toNanos(),
+                    TimeUnit.NANOSECONDS);
+            operation.result.whenComplete((value, throwable) -> timeoutTask.cancel(false));
+        }
+        return operation.result;
+    }
+
+    private void submitOperation(final Operation<?> operation) {
+        if (!inFlightPermits.tryAcquire()) {
+            operation.abort(new SQLTransientException(
+                    "Too many database operations in flight, maximum is " + maxInFlight));
+            return;
+        }
+        try {
+            executor.execute(operation);
+        } catch (RejectedExecutionException e) {
+            inFlightPermits.release();
+            operation.abort(new SQLTransientException("Database operation rejected", e));
+        }
+    }
+
+    /**
+     * Returns the number of operations currently queued or running.
+     *
+     * @return Number of operations in flight.
+     */
+    public int getInFlightCount() {
+        return maxInFlight - inFlightPermits.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        timeoutScheduler.shutdownNow();
+    }
+
+    static ThreadFactory daemonThreads(final String namePrefix) {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, namePrefix + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Operation which is skipped if its result has already been completed (e.g. by a timeout) before it started. A
+     * {@link RuntimeException} of the operation completes its result exceptionally. The in-flight permit is always
+     * released by the worker thread, because the connection is in use until the operation actually returns.
+     */
+    private final class Operation<R> implements Runnable {
+
+        private final Function<Connection, R> dbFunction;
+        private final Deadline deadline;
+        private final CompletableFuture<Either<R, SQLException>> result = new CompletableFuture<>();
+
+        private Operation(final Function<Connection, R> dbFunction, final Deadline deadline) {
+            this.dbFunction = dbFunction;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!result.isDone()) {
+                    result.complete(deadline == null
+                            ? doInDatabase(connectionFactory, dbFunction)
+                            : doInDatabase(connectionFactory, dbFunction, deadline));
+                }
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            } finally {
+                inFlightPermits.release();
+            }
+        }
+
+        private void abort(final SQLException reason) {
+            result.complete(Either.right(reason));
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Function;
+import de.henninglanghorst.functional.sql.function.Supplier;
+import de.henninglanghorst.functional.util.Either;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static de.henninglanghorst.functional.sql.DatabaseOperationFunctions.doInDatabase;
+
+/**
+ * Combines single-row lookups requested within a short time window into one query for all requested keys, e.g.
+ * {@code select * from Person where id in (?, ?, ?)}, and distributes the rows back to the callers.
+ * <p>
+ * A batch is dispatched as soon as it contains {@code maxBatchSize} distinct keys or {@code maxWait} has passed
+ * since its first key was requested. Like {@link DatabaseQueryFunctions#singleRowExtraction(Function)} every key
+ * must match exactly one row; otherwise the caller receives an {@link SQLException} for that key only. If the batch
+ * query fails, all callers of the batch receive its exception.
+ * <p>
+ * Optionally successful results are cached per key, so repeated lookups of the same key within the lifetime of the
+ * loader (e.g. one request) do not hit the database again.
+ *
+ * @param <K> Type of the keys.
+ * @param <V> Type of the loaded values.
+ * @author Henning Langhorst
+ */
+public final class BatchLoader<K, V> implements AutoCloseable {
+
+    private final Supplier<Connection> connectionFactory;
+    private final java.util.function.Function<List<K>, Function<Connection, List<V>>> batchQuery;
+    private final java.util.function.Function<V, K> keyExtractor;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final Map<K, CompletableFuture<Either<V, SQLException>>> cache;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService dispatchExecutor;
+
+    private final Object lock = new Object();
+    private Map<K, CompletableFuture<Either<V, SQLException>>> pendingBatch = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledDispatch;
+    private boolean closed;
+
+    private BatchLoader(final Builder<K, V> builder) {
+        this.connectionFactory = builder.connectionFactory;
+        this.batchQuery = builder.batchQuery;
+        this.keyExtractor = builder.keyExtractor;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.maxWaitNanos = builder.maxWait.toNanos();
+        this.cache = builder.cachingEnabled ? new ConcurrentHashMap<>() : null;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                AsyncDatabaseExecutor.daemonThreads("batch-loader-timer"));
+        this.dispatchExecutor = Executors.newFixedThreadPool(
+                builder.dispatchThreads, AsyncDatabaseExecutor.daemonThreads("batch-loader"));
+    }
+
+    /**
+     * Creates a builder for a batch loader.
+     *
+     * @param connectionFactory {@link Supplier} providing the connections for the batch queries.
+     * @param batchQuery        Creates the query function loading all rows for a list of keys.
+     * @param keyExtractor      Extracts the key from a loaded value.
+     * @param <K>               Type of the keys.
+     * @param <V>               Type of the loaded values.
+     * @return Builder with default settings.
+     */
+    public static <K, V> Builder<K, V> builder(
+            final Supplier<Connection> connectionFactory,
+            final java.util.function.Function<List<K>, Function<Connection, List<V>>> batchQuery,
+            final java.util.function.Function<V, K> keyExtractor) {
+        return new Builder<>(connectionFactory, batchQuery, keyExtractor);
+    }
+
+    /**
+     * Requests the value for the given key.
+     *
+     * @param key Key of the value.
+     * @return Future completed with either the value of the key or the {@link SQLException}, which is completed
+     * immediately with an {@link SQLException} if the loader has been closed.
+     */
+    public CompletableFuture<Either<V, SQLException>> load(final K key) {
+        if (cache != null) {
+            final CompletableFuture<Either<V, SQLException>> cachedResult = cache.get(key);
+            if (cachedResult != null) {
+                return cachedResult;
+            }
+        }
+        final CompletableFuture<Either<V, SQLException>> result;
+        Map<K, CompletableFuture<Either<V, SQLException>>> fullBatch = null;
+        synchronized (lock) {
+            if (closed) {
+                return CompletableFuture.completedFuture(Either.right(new SQLException("Batch loader has been closed")));
+            }
+            final CompletableFuture<Either<V, SQLException>> pendingResult = pendingBatch.get(key);
+            if (pendingResult != null) {
+                return pendingResult;
+            }
+            result = new CompletableFuture<>();
+            pendingBatch.put(key, result);
+            if (cache != null) {
+                cache.put(key, result);
+            }
+            if (pendingBatch.size() >= maxBatchSize) {
+                fullBatch = takePendingBatch();
+            } else if (pendingBatch.size() == 1) {
+                scheduledDispatch = scheduler.schedule(this::dispatchPendingBatch, maxWaitNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (cache != null) {
+            result.thenAccept(value -> {
+                if (value.isRight()) {
+                    cache.remove(key, result);
+                }
+            });
+        }
+        if (fullBatch != null) {
+            dispatch(fullBatch);
+        }
+        return result;
+    }
+
+    /**
+     * Removes all cached values.
+     */
+    public void clearCache() {
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+        }
+        scheduler.shutdownNow();
+        dispatchPendingBatch();
+        dispatchExecutor.shutdown();
+    }
+
+    private Map<K, CompletableFuture<Either<V, SQLException>>> takePendingBatch() {
+        final Map<K, CompletableFuture<Either<V, SQLException>>> batch = pendingBatch;
+        pendingBatch = new LinkedHashMap<>();
+        if (scheduledDispatch != null) {
+            scheduledDispatch.cancel(false);
+            scheduledDispatch = null;
+        }
+        return batch;
+    }
+
+    private void dispatchPendingBatch() {
+        final Map<K, CompletableFuture<Either<V, SQLException>>> batch;
+        synchronized (lock) {
+            batch = takePendingBatch();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private void dispatch(final Map<K, CompletableFuture<Either<V, SQLException>>> batch) {
+        try {
+            dispatchExecutor.execute(() -> loadBatch(batch));
+        } catch (RejectedExecutionException e) {
+            loadBatch(batch);
+        }
+    }
+
+    private void loadBatch(final Map<K, CompletableFuture<Either<V, SQLException>>> batch) {
+        try {
+            distributeBatchResult(batch);
+        } catch (RuntimeException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private void distributeBatchResult(final Map<K, CompletableFuture<Either<V, SQLException>>> batch) {
+        final Either<List<V>, SQLException> result =
+                doInDatabase(connectionFactory, batchQuery.apply(new ArrayList<>(batch.keySet())));
+        if (result.isRight()) {
+            final Either<V, SQLException> failure = Either.right(result.right().get());
+            batch.values().forEach(future -> future.complete(failure));
+            return;
+        }
+        final Map<K, List<V>> valuesByKey = new HashMap<>();
+        for (V value : result.left().get()) {
+            valuesByKey.computeIfAbsent(keyExtractor.apply(value), key -> new ArrayList<>(1)).add(value);
+        }
+        batch.forEach((key, future) -> future.complete(singleValue(valuesByKey.get(key))));
+    }
+
+    private Either<V, SQLException> singleValue(final List<V> values) {
+        if (values == null) {
+            return Either.right(new NoDataFoundException());
+        }
+        if (values.size() > 1) {
+            return Either.right(new TooManyRowsException());
+        }
+        return Either.left(values.get(0));
+    }
+
+    /**
+     * Builder for {@link BatchLoader}s.
+     *
+     * @param <K> Type of the keys.
+     * @param <V> Type of the loaded values.
+     */
+    public static final class Builder<K, V> {
+
+        private final Supplier<Connection> connectionFactory;
+        private final java.util.function.Function<List<K>, Function<Connection, List<V>>> batchQuery;
+        private final java.util.function.Function<V, K> keyExtractor;
+        private int maxBatchSize = 100;
+        private Duration maxWait = Duration.ofMillis(5);
+        private boolean cachingEnabled = false;
+        private int dispatchThreads = 2;
+
+        private Builder(final Supplier<Connection> connectionFactory,
+                        final java.util.function.Function<List<K>, Function<Connection, List<V>>> batchQuery,
+                        final java.util.function.Function<V, K> keyExtractor) {
+            this.connectionFactory = connectionFactory;
+            this.batchQuery = batchQuery;
+            this.keyExtractor = keyExtractor;
+        }
+
+        public Builder<K, V> maxBatchSize(final int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public Builder<K, V> maxWait(final Duration maxWait) {
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        public Builder<K, V> cachingEnabled(final boolean cachingEnabled) {
+            this.cachingEnabled = cachingEnabled;
+            return this;
+        }
+
+        public Builder<K, V> dispatchThreads(final int dispatchThreads) {
+            this.dispatchThreads = dispatchThreads;
+            return this;
+        }
+
+        public BatchLoader<K, V> build() {
+            if (maxBatchSize < 1 || dispatchThreads < 1) {
+                throw new IllegalArgumentException(
+                        "Invalid settings, max batch size " + maxBatchSize + ", dispatch threads " + dispatchThreads);
+            }
+            return new BatchLoader<>(this);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package de.henninglanghorst.functional.sql;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown if a {@link BulkLoader} fails. The rows committed before the failure stay in the database, so the load can be
+ * restarted at {@link #getCommittedRows()}.
+ *
+ * @author Henning Langhorst
+ */
+public class BulkLoadException extends SQLException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long committedRows;
+
+    /**
+     * Creates an exception for a failed bulk load.
+     *
+     * @param committedRows Number of rows committed before the failure, including skipped rows.
+     * @param cause         Exception causing the failure.
+     */
+    public BulkLoadException(final long committedRows, final SQLException cause) {
+        super("Bulk load failed after " + committedRows + " committed rows: " + cause.getMessage(),
+                cause.getSQLState(), cause.getErrorCode(), cause);
+        this.committedRows = committedRows;
+    }
+
+    /**
+     * Returns the number of rows committed before the failure, which can be used as start offset for restarting the
+     * load.
+     *
+     * @return Number of committed rows.
+     */
+    public long getCommittedRows() {
+        return committedRows;
+    }
+}
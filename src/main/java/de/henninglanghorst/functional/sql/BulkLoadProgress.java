@@ -0,0 +1,59 @@
+package de.henninglanghorst.functional.sql;
+
+import java.time.Duration;
+
+/**
+ * Progress of a {@link BulkLoader} after a commit.
+ *
+ * @author Henning Langhorst
+ */
+public final class BulkLoadProgress {
+
+    private final long committedRows;
+    private final long loadedRows;
+    private final long elapsedNanos;
+
+    BulkLoadProgress(final long committedRows, final long loadedRows, final long elapsedNanos) {
+        this.committedRows = committedRows;
+        this.loadedRows = loadedRows;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the number of rows committed so far including the rows skipped by the start offset, i.e. the offset at
+     * which a failed load can be restarted.
+     *
+     * @return Number of committed rows.
+     */
+    public long getCommittedRows() {
+        return committedRows;
+    }
+
+    /**
+     * Returns the number of rows inserted and committed by this load.
+     *
+     * @return Number of rows loaded since the start offset.
+     */
+    public long getLoadedRows() {
+        return loadedRows;
+    }
+
+    public Duration getElapsed() {
+        return Duration.ofNanos(elapsedNanos);
+    }
+
+    /**
+     * Returns the throughput of this load.
+     *
+     * @return Rows loaded per second.
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : loadedRows * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkLoadProgress(committedRows=" + committedRows + ", loadedRows=" + loadedRows
+                + ", elapsed=" + getElapsed() + ")";
+    }
+}
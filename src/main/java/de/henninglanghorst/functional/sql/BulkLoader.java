@@ -0,0 +1,263 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Function;
+import de.henninglanghorst.functional.sql.function.Supplier;
+import de.henninglanghorst.functional.sql.instrumentation.Instrumentation;
+import de.henninglanghorst.functional.sql.instrumentation.InstrumentationRegistry;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Inserts rows from an {@link Iterator} or {@link Stream} with a single SQL statement, e.g.
+ * {@code insert into Person values (?, ?, ?, ?)}, without holding all rows in memory.
+ * <p>
+ * The rows are sent to the database in JDBC batches and committed every {@code commitInterval} rows. If the load
+ * fails, only the rows since the last commit are rolled back and a {@link BulkLoadException} reports the number of
+ * committed rows. Passing that number as {@code startOffset} to a new load with the same rows skips the committed
+ * rows and resumes the load.
+ * <p>
+ * The loader owns the transactions of the load, so it must not be applied within a transaction of the caller, e.g.
+ * within {@link DatabaseTransactionFunctions#withinTransaction(Function)}. The connection has to be in auto-commit
+ * mode, which is disabled during the load and enabled again afterwards.
+ *
+ * @param <T> Type of the row objects.
+ * @author Henning Langhorst
+ */
+public final class BulkLoader<T> {
+
+    private final String sql;
+    private final RowBinder<T> rowBinder;
+    private final int batchSize;
+    private final long commitInterval;
+    private final long startOffset;
+    private final Consumer<BulkLoadProgress> progressListener;
+    private final UpdateListener updateListener;
+
+    private BulkLoader(final Builder<T> builder) {
+        this.sql = builder.sql;
+        this.rowBinder = builder.rowBinder;
+        this.batchSize = builder.batchSize;
+        this.commitInterval = builder.commitInterval;
+        this.startOffset = builder.startOffset;
+        this.progressListener = builder.progressListener;
+        this.updateListener = builder.updateListener;
+    }
+
+    /**
+     * Creates a builder for a bulk loader.
+     *
+     * @param sql       SQL statement inserting a single row.
+     * @param rowBinder Sets the statement parameters from a row object.
+     * @param <T>       Type of the row objects.
+     * @return Builder with default settings.
+     */
+    public static <T> Builder<T> builder(final String sql, final RowBinder<T> rowBinder) {
+        return new Builder<>(sql, rowBinder);
+    }
+
+    /**
+     * Returns a function loading the rows of the given stream, usable with
+     * {@link DatabaseOperationFunctions#doInDatabase(Supplier, Function)}. The stream is consumed when the function
+     * is applied and is not closed. Applying the function fails if the connection is not in auto-commit mode.
+     *
+     * @param rows Rows to be inserted.
+     * @return A Function performing the load and returning its final progress.
+     */
+    public Function<Connection, BulkLoadProgress> load(final Stream<T> rows) {
+        return connection -> performLoad(connection, rows.iterator());
+    }
+
+    /**
+     * Returns a function loading the rows of the given iterator, usable with
+     * {@link DatabaseOperationFunctions#doInDatabase(Supplier, Function)}. Applying the function fails if the
+     * connection is not in auto-commit mode.
+     *
+     * @param rows Rows to be inserted.
+     * @return A Function performing the load and returning its final progress.
+     */
+    public Function<Connection, BulkLoadProgress> load(final Iterator<T> rows) {
+        return connection -> performLoad(connection, rows);
+    }
+
+    private BulkLoadProgress performLoad(final Connection connection, final Iterator<T> rows) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            throw new SQLException("Bulk load must not be performed within a transaction, auto-commit is disabled");
+        }
+        final Instrumentation instrumentation = InstrumentationRegistry.current();
+        final long start = System.nanoTime();
+        long committedRows = 0;
+        while (committedRows < startOffset && rows.hasNext()) {
+            rows.next();
+            committedRows++;
+        }
+        final long skippedRows = committedRows;
+        connection.setAutoCommit(false);
+        final BulkLoadProgress progress;
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            instrumentation.statementPrepared(sql, System.nanoTime() - start);
+            int batchedRows = 0;
+            long uncommittedRows = 0;
+            while (rows.hasNext()) {
+                StatementParameters.bind(preparedStatement, rows.next(), rowBinder);
+                preparedStatement.addBatch();
+                batchedRows++;
+                uncommittedRows++;
+                if (batchedRows == batchSize || uncommittedRows == commitInterval) {
+                    executeBatch(instrumentation, preparedStatement);
+                    batchedRows = 0;
+                }
+                if (uncommittedRows == commitInterval) {
+                    connection.commit();
+                    updateListener.afterUpdate(sql);
+                    committedRows += uncommittedRows;
+                    uncommittedRows = 0;
+                    progressListener.accept(new BulkLoadProgress(
+                            committedRows, committedRows - skippedRows, System.nanoTime() - start));
+                }
+            }
+            if (batchedRows > 0) {
+                executeBatch(instrumentation, preparedStatement);
+            }
+            if (uncommittedRows > 0) {
+                connection.commit();
+                updateListener.afterUpdate(sql);
+                committedRows += uncommittedRows;
+            }
+            progress = new BulkLoadProgress(committedRows, committedRows - skippedRows, System.nanoTime() - start);
+            if (uncommittedRows > 0) {
+                progressListener.accept(progress);
+            }
+        } catch (SQLException e) {
+            instrumentation.statementFailed(sql, e);
+            rollbackAfterFailure(connection, e);
+            final BulkLoadException failure = new BulkLoadException(committedRows, e);
+            restoreAutoCommitAfterFailure(connection, failure);
+            throw failure;
+        } catch (RuntimeException e) {
+            rollbackAfterFailure(connection, e);
+            restoreAutoCommitAfterFailure(connection, e);
+            throw e;
+        }
+        connection.setAutoCommit(true);
+        return progress;
+    }
+
+    private void executeBatch(final Instrumentation instrumentation,
+                              final PreparedStatement preparedStatement) throws SQLException {
+        final long start = System.nanoTime();
+        final int[] updateCounts = preparedStatement.executeBatch();
+        long updatedRows = 0;
+        for (int updateCount : updateCounts) {
+            updatedRows += Math.max(0, updateCount);
+        }
+        instrumentation.updateExecuted(sql, System.nanoTime() - start, updatedRows);
+    }
+
+    private static void rollbackAfterFailure(final Connection connection, final Exception failure) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private static void restoreAutoCommitAfterFailure(final Connection connection, final Exception failure) {
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Builder for {@link BulkLoader}s.
+     *
+     * @param <T> Type of the row objects.
+     */
+    public static final class Builder<T> {
+
+        private final String sql;
+        private final RowBinder<T> rowBinder;
+        private int batchSize = 1000;
+        private long commitInterval = 10_000;
+        private long startOffset = 0;
+        private Consumer<BulkLoadProgress> progressListener = progress -> {
+        };
+        private UpdateListener updateListener = sql -> {
+        };
+
+        private Builder(final String sql, final RowBinder<T> rowBinder) {
+            this.sql = sql;
+            this.rowBinder = rowBinder;
+        }
+
+        /**
+         * Sets the number of rows sent to the database with a single {@link PreparedStatement#executeBatch()}.
+         *
+         * @param batchSize Rows per JDBC batch.
+         * @return This builder.
+         */
+        public Builder<T> batchSize(final int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Sets the number of rows after which the inserted rows are committed.
+         *
+         * @param commitInterval Rows per transaction.
+         * @return This builder.
+         */
+        public Builder<T> commitInterval(final long commitInterval) {
+            this.commitInterval = commitInterval;
+            return this;
+        }
+
+        /**
+         * Sets the number of leading rows which are skipped because a previous load has already committed them, see
+         * {@link BulkLoadException#getCommittedRows()}.
+         *
+         * @param startOffset Number of rows to be skipped.
+         * @return This builder.
+         */
+        public Builder<T> startOffset(final long startOffset) {
+            this.startOffset = startOffset;
+            return this;
+        }
+
+        /**
+         * Sets a listener notified with the progress after every commit.
+         *
+         * @param progressListener Listener for the progress of the load.
+         * @return This builder.
+         */
+        public Builder<T> progressListener(final Consumer<BulkLoadProgress> progressListener) {
+            this.progressListener = progressListener;
+            return this;
+        }
+
+        /**
+         * Sets a listener notified about the inserted rows after every commit, e.g. a {@link QueryCache}.
+         *
+         * @param updateListener Listener notified about the updates.
+         * @return This builder.
+         */
+        public Builder<T> updateListener(final UpdateListener updateListener) {
+            this.updateListener = updateListener;
+            return this;
+        }
+
+        public BulkLoader<T> build() {
+            if (batchSize < 1 || commitInterval < 1 || startOffset < 0) {
+                throw new IllegalArgumentException("Invalid settings, batch size " + batchSize
+                        + ", commit interval " + commitInterval + ", start offset " + startOffset);
+            }
+            return new BulkLoader<>(this);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package de.henninglanghorst.functional.sql;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator delegating to another one, which releases resources as soon as all elements have been consumed or
+ * the iteration failed. The same close action is meant to be registered with {@link java.util.stream.Stream#onClose},
+ * it is only executed once.
+ *
+ * @author Henning Langhorst
+ */
+final class ClosingSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+    private final Spliterator<T> delegate;
+    private final Runnable closeAction;
+
+    private ClosingSpliterator(final Spliterator<T> delegate, final Runnable closeAction) {
+        super(delegate.estimateSize(), delegate.characteristics() & ~(SIZED | SUBSIZED));
+        this.delegate = delegate;
+        this.closeAction = closeAction;
+    }
+
+    /**
+     * Creates a spliterator running the given close action after the last element.
+     *
+     * @param delegate    Spliterator providing the elements.
+     * @param closeAction Action releasing the resources, run at most once.
+     * @param <T>         Element type.
+     * @return Spliterator closing the resources on exhaustion or failure.
+     */
+    static <T> ClosingSpliterator<T> closingOnExhaustion(final Spliterator<T> delegate, final Runnable closeAction) {
+        return new ClosingSpliterator<>(delegate, once(closeAction));
+    }
+
+    /**
+     * Wraps the given action so that it is executed at most once.
+     *
+     * @param action Action to be executed.
+     * @return Action executing the given one on the first call only.
+     */
+    static Runnable once(final Runnable action) {
+        final AtomicBoolean executed = new AtomicBoolean();
+        return () -> {
+            if (executed.compareAndSet(false, true)) {
+                action.run();
+            }
+        };
+    }
+
+    Runnable getCloseAction() {
+        return closeAction;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super T> action) {
+        final boolean advanced;
+        try {
+            advanced = delegate.tryAdvance(action);
+        } catch (RuntimeException | Error e) {
+            closeAction.run();
+            throw e;
+        }
+        if (!advanced) {
+            closeAction.run();
+        }
+        return advanced;
+    }
+}
@@ -0,0 +1,321 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Function;
+import de.henninglanghorst.functional.sql.function.Supplier;
+import de.henninglanghorst.functional.util.Either;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of database operations running at the same time like a bulkhead, with a limit adapting to the
+ * observed latency.
+ * <p>
+ * Operations beyond the current limit do not wait for a connection but fail immediately with an
+ * {@link SQLTransientException}, so a slow database does not make callers pile up in the connection pool. The limit
+ * follows the additive increase/multiplicative decrease (AIMD) scheme: it grows by about one after a limit's worth of
+ * operations completed within the latency threshold while the limit was in use, and shrinks by the backoff ratio
+ * when an operation exceeds the latency threshold or fails with an {@link SQLTimeoutException}. The limit shrinks only
+ * for operations started after its last decrease, so a burst of slow operations running at the same time shrinks it
+ * once instead of once per operation.
+ * <p>
+ * Operations can be tagged with a partition, e.g. {@code "batch"}, whose operations may only use a share of the
+ * limit, so that they cannot take all permits from untagged operations.
+ *
+ * @author Henning Langhorst
+ */
+public final class ConcurrencyLimiter {
+
+    private final Supplier<Connection> connectionFactory;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final Map<String, Partition> partitions;
+
+    private final AtomicLong limitBits;
+    private final AtomicLong lastDecreaseNanos = new AtomicLong(System.nanoTime());
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private ConcurrencyLimiter(final Builder builder) {
+        this.connectionFactory = builder.connectionFactory;
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.latencyThresholdNanos = builder.latencyThreshold.toNanos();
+        this.backoffRatio = builder.backoffRatio;
+        final Map<String, Partition> partitions = new HashMap<>();
+        builder.partitionShares.forEach((tag, share) -> partitions.put(tag, new Partition(share)));
+        this.partitions = Collections.unmodifiableMap(partitions);
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(builder.initialLimit));
+    }
+
+    /**
+     * Creates a builder for a concurrency limiter.
+     *
+     * @param connectionFactory {@link Supplier} providing the connections to be used.
+     * @return Builder with default settings.
+     */
+    public static Builder builder(final Supplier<Connection> connectionFactory) {
+        return new Builder(connectionFactory);
+    }
+
+    /**
+     * Applies a function on a database connection like
+     * {@link DatabaseOperationFunctions#doInDatabase(Supplier, Function)} if the limit permits.
+     *
+     * @param dbFunction Function applied to the connection.
+     * @param <R>        Type of the return value after successful execution.
+     * @return Either the return value of Type {@link R} or the {@link SQLException} in case of an error, which is an
+     * {@link SQLTransientException} if the operation has been rejected.
+     */
+    public <R> Either<R, SQLException> doInDatabase(final Function<Connection, R> dbFunction) {
+        return doInDatabase(null, dbFunction);
+    }
+
+    /**
+     * Applies a function on a database connection if both the overall limit and the limit of the partition permit.
+     *
+     * @param tag        Tag of a partition configured with {@link Builder#partition(String, double)}, or
+     *                   {@code null} for an untagged operation.
+     * @param dbFunction Function applied to the connection.
+     * @param <R>        Type of the return value after successful execution.
+     * @return Either the return value of Type {@link R} or the {@link SQLException} in case of an error, which is an
+     * {@link SQLTransientException} if the operation has been rejected.
+     */
+    public <R> Either<R, SQLException> doInDatabase(final String tag, final Function<Connection, R> dbFunction) {
+        final Partition partition = partitionOf(tag);
+        final int limit = getLimit();
+        final int inFlightAtStart = tryAcquire(inFlight, limit);
+        if (inFlightAtStart < 0) {
+            return reject("Concurrency limit of " + limit + " reached");
+        }
+        if (partition != null && tryAcquire(partition.inFlight, partition.limit(limit)) < 0) {
+            inFlight.decrementAndGet();
+            return reject("Concurrency limit of " + partition.limit(limit) + " reached for " + tag);
+        }
+        try {
+            final long start = System.nanoTime();
+            final Either<R, SQLException> result = DatabaseOperationFunctions.doInDatabase(connectionFactory, dbFunction);
+            adjustLimit(start, System.nanoTime() - start, result, inFlightAtStart);
+            return result;
+        } finally {
+            inFlight.decrementAndGet();
+            if (partition != null) {
+                partition.inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Returns the current limit of operations running at the same time.
+     *
+     * @return Current limit.
+     */
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    /**
+     * Returns the number of operations currently running.
+     *
+     * @return Number of operations in flight.
+     */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * Returns the number of operations rejected so far.
+     *
+     * @return Number of rejected operations.
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    private Partition partitionOf(final String tag) {
+        if (tag == null) {
+            return null;
+        }
+        final Partition partition = partitions.get(tag);
+        if (partition == null) {
+            throw new IllegalArgumentException("Unknown partition: " + tag);
+        }
+        return partition;
+    }
+
+    /**
+     * Takes a permit without blocking.
+     *
+     * @return Number of operations in flight including the new one, or -1 if the limit has been reached.
+     */
+    private static int tryAcquire(final AtomicInteger counter, final int limit) {
+        while (true) {
+            final int current = counter.get();
+            if (current >= limit) {
+                return -1;
+            }
+            if (counter.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    private <R> Either<R, SQLException> reject(final String message) {
+        rejectedCount.incrementAndGet();
+        return Either.right(new SQLTransientException(message));
+    }
+
+    private void adjustLimit(final long startNanos,
+                             final long latencyNanos,
+                             final Either<?, SQLException> result,
+                             final int inFlightAtStart) {
+        final boolean overloaded = latencyNanos > latencyThresholdNanos
+                || result.fold(value -> false, e -> e instanceof SQLTimeoutException);
+        if (overloaded && !claimDecrease(startNanos)) {
+            return;
+        }
+        while (true) {
+            final long currentBits = limitBits.get();
+            final double current = Double.longBitsToDouble(currentBits);
+            final double adjusted;
+            if (overloaded) {
+                adjusted = Math.max(minLimit, current * backoffRatio);
+            } else if (inFlightAtStart * 2 >= current) {
+                adjusted = Math.min(maxLimit, current + 1 / current);
+            } else {
+                return;
+            }
+            if (adjusted == current || limitBits.compareAndSet(currentBits, Double.doubleToLongBits(adjusted))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Claims the decrease of the limit for an overloaded operation. Operations started before the last decrease have
+     * been running under the higher limit, so their latency has already been accounted for.
+     *
+     * @return {@code true} if the limit is to be decreased.
+     */
+    private boolean claimDecrease(final long startNanos) {
+        while (true) {
+            final long lastDecrease = lastDecreaseNanos.get();
+            if (startNanos - lastDecrease <= 0) {
+                return false;
+            }
+            if (lastDecreaseNanos.compareAndSet(lastDecrease, System.nanoTime())) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Operations sharing a tag, together with their share of the limit.
+     */
+    private static final class Partition {
+
+        private final double share;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private Partition(final double share) {
+            this.share = share;
+        }
+
+        private int limit(final int overallLimit) {
+            return Math.max(1, (int) (overallLimit * share));
+        }
+    }
+
+    /**
+     * Builder for {@link ConcurrencyLimiter}s.
+     */
+    public static final class Builder {
+
+        private final Supplier<Connection> connectionFactory;
+        private int initialLimit = 10;
+        private int minLimit = 1;
+        private int maxLimit = 100;
+        private Duration latencyThreshold = Duration.ofMillis(100);
+        private double backoffRatio = 0.9;
+        private final Map<String, Double> partitionShares = new HashMap<>();
+
+        private Builder(final Supplier<Connection> connectionFactory) {
+            this.connectionFactory = connectionFactory;
+        }
+
+        public Builder initialLimit(final int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        public Builder minLimit(final int minLimit) {
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        public Builder maxLimit(final int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * Sets the latency above which an operation is taken as a sign of overload.
+         *
+         * @param latencyThreshold Latency threshold, including the time for obtaining the connection.
+         * @return This builder.
+         */
+        public Builder latencyThreshold(final Duration latencyThreshold) {
+            this.latencyThreshold = latencyThreshold;
+            return this;
+        }
+
+        /**
+         * Sets the factor the limit is multiplied with on overload.
+         *
+         * @param backoffRatio Factor between 0 and 1, exclusively.
+         * @return This builder.
+         */
+        public Builder backoffRatio(final double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * Adds a partition whose operations may only use a share of the limit.
+         *
+         * @param tag   Tag of the operations of the partition.
+         * @param share Share of the limit between 0 and 1; the partition may always run at least one operation.
+         * @return This builder.
+         */
+        public Builder partition(final String tag, final double share) {
+            if (!(share > 0 && share <= 1)) {
+                throw new IllegalArgumentException("Share must be between 0 and 1: " + share);
+            }
+            partitionShares.put(tag, share);
+            return this;
+        }
+
+        public ConcurrencyLimiter build() {
+            if (minLimit < 1 || minLimit > maxLimit) {
+                throw new IllegalArgumentException("Invalid limits: " + minLimit + ".." + maxLimit);
+            }
+            if (initialLimit < minLimit || initialLimit > maxLimit) {
+                throw new IllegalArgumentException("Initial limit out of range: " + initialLimit);
+            }
+            if (!(backoffRatio > 0 && backoffRatio < 1)) {
+                throw new IllegalArgumentException("Backoff ratio must be between 0 and 1: " + backoffRatio);
+            }
+            return new ConcurrencyLimiter(this);
+        }
+    }
+}
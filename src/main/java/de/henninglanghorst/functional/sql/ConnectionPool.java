@@ -0,0 +1,386 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Function;
+import de.henninglanghorst.functional.sql.function.Supplier;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dependency-free connection pool which can be used as connection factory in
+ * {@link DatabaseOperationFunctions#doInDatabase(Supplier, Function)}.
+ * <p>
+ * Checkout does not take any lock: every thread first tries the connection it used last, then the idle
+ * connections in LIFO order, then creates a new connection if the maximum size is not reached yet. Otherwise it
+ * waits until another thread hands over a returned connection or the acquire timeout expires, in which case an
+ * {@link SQLTransientConnectionException} is thrown (and returned as {@code Right} by {@code doInDatabase}).
+ * <p>
+ * Connections idle for longer than a short period are validated before they are handed out. Connections idle for
+ * longer than the idle timeout are closed by a background task as long as more than the minimum number of connections
+ * exist.
+ *
+ * @author Henning Langhorst
+ */
+public final class ConnectionPool implements Supplier<Connection>, AutoCloseable {
+
+    private static final int NOT_IN_USE = 0;
+    private static final int IN_USE = 1;
+    private static final int REMOVED = -1;
+
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long MAX_HANDOFF_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int MAX_HANDOFF_ATTEMPTS = 256;
+
+    private final Supplier<Connection> physicalConnectionFactory;
+    private final int minimumSize;
+    private final int maximumSize;
+    private final long acquireTimeoutNanos;
+    private final long idleTimeoutNanos;
+    private final int validationTimeoutSeconds;
+
+    private final CopyOnWriteArrayList<PoolEntry> entries = new CopyOnWriteArrayList<>();
+    private final ConcurrentLinkedDeque<PoolEntry> idleEntries = new ConcurrentLinkedDeque<>();
+    private final SynchronousQueue<PoolEntry> handoffQueue = new SynchronousQueue<>(true);
+    private final ThreadLocal<PoolEntry> lastUsedEntry = new ThreadLocal<>();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger waitingThreads = new AtomicInteger();
+    private final ScheduledExecutorService housekeeping;
+    private volatile boolean closed;
+
+    private ConnectionPool(final Builder builder) {
+        this.physicalConnectionFactory = builder.physicalConnectionFactory;
+        this.minimumSize = builder.minimumSize;
+        this.maximumSize = builder.maximumSize;
+        this.acquireTimeoutNanos = builder.acquireTimeout.toNanos();
+        this.idleTimeoutNanos = builder.idleTimeout.toNanos();
+        this.validationTimeoutSeconds = (int) Math.max(1, builder.validationTimeout.getSeconds());
+        this.housekeeping = Executors.newSingleThreadScheduledExecutor(
+                AsyncDatabaseExecutor.daemonThreads("connection-pool-housekeeping"));
+        final long housekeepingPeriodMillis = Math.max(1000, TimeUnit.NANOSECONDS.toMillis(idleTimeoutNanos) / 2);
+        housekeeping.scheduleWithFixedDelay(
+                this::performHousekeeping, 0, housekeepingPeriodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a builder for a connection pool.
+     *
+     * @param physicalConnectionFactory Creates the physical connections held by the pool, e.g.
+     *                                  {@code () -> DriverManager.getConnection(url, user, password)}.
+     * @return Builder with default settings.
+     */
+    public static Builder builder(final Supplier<Connection> physicalConnectionFactory) {
+        return new Builder(physicalConnectionFactory);
+    }
+
+    /**
+     * Borrows a connection from the pool. Closing the returned connection returns it to the pool.
+     *
+     * @return A pooled connection.
+     * @throws SQLException If no connection becomes available within the acquire timeout or creating a connection
+     *                      fails.
+     */
+    @Override
+    public Connection get() throws SQLException {
+        final long startNanos = System.nanoTime();
+        final PoolEntry threadLocalEntry = lastUsedEntry.get();
+        if (threadLocalEntry != null && threadLocalEntry.tryReserve() && isUsable(threadLocalEntry)) {
+            return threadLocalEntry.lease();
+        }
+        waitingThreads.incrementAndGet();
+        try {
+            return borrow(startNanos);
+        } finally {
+            waitingThreads.decrementAndGet();
+        }
+    }
+
+    private Connection borrow(final long startNanos) throws SQLException {
+        while (!closed) {
+            PoolEntry entry;
+            while ((entry = idleEntries.pollFirst()) != null) {
+                entry.queued.set(false);
+                if (entry.tryReserve() && isUsable(entry)) {
+                    return entry.lease();
+                }
+            }
+            entry = tryCreateEntry();
+            if (entry != null) {
+                return entry.lease();
+            }
+            final long remainingNanos = acquireTimeoutNanos - (System.nanoTime() - startNanos);
+            if (remainingNanos <= 0) {
+                break;
+            }
+            try {
+                entry = handoffQueue.poll(Math.min(remainingNanos, MAX_HANDOFF_WAIT_NANOS), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Interrupted while waiting for a connection", e);
+            }
+            if (entry != null && entry.tryReserve() && isUsable(entry)) {
+                return entry.lease();
+            }
+        }
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        throw new SQLTransientConnectionException("Timeout after "
+                + TimeUnit.NANOSECONDS.toMillis(acquireTimeoutNanos) + "ms waiting for a connection, "
+                + getActiveConnections() + " of " + maximumSize + " connections in use");
+    }
+
+    private PoolEntry tryCreateEntry() throws SQLException {
+        int total;
+        while ((total = totalConnections.get()) < maximumSize) {
+            if (totalConnections.compareAndSet(total, total + 1)) {
+                try {
+                    final PoolEntry entry = new PoolEntry(physicalConnectionFactory.get());
+                    entries.add(entry);
+                    return entry;
+                } catch (SQLException | RuntimeException e) {
+                    totalConnections.decrementAndGet();
+                    throw e;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isUsable(final PoolEntry entry) {
+        if (System.nanoTime() - entry.lastReturnedNanos < VALIDATION_BYPASS_NANOS) {
+            return true;
+        }
+        try {
+            if (entry.physicalConnection.isValid(validationTimeoutSeconds)) {
+                return true;
+            }
+        } catch (SQLException e) {
+            // treated as invalid connection
+        }
+        remove(entry);
+        return false;
+    }
+
+    private void release(final PoolEntry entry) {
+        try {
+            if (!entry.physicalConnection.getAutoCommit()) {
+                entry.physicalConnection.rollback();
+                entry.physicalConnection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            remove(entry);
+            return;
+        }
+        if (closed) {
+            remove(entry);
+            return;
+        }
+        entry.lastReturnedNanos = System.nanoTime();
+        entry.state.set(NOT_IN_USE);
+        for (int attempt = 0; attempt < MAX_HANDOFF_ATTEMPTS && waitingThreads.get() > 0; attempt++) {
+            if (entry.state.get() != NOT_IN_USE || handoffQueue.offer(entry)) {
+                return;
+            }
+            Thread.yield();
+        }
+        if (entry.queued.compareAndSet(false, true)) {
+            idleEntries.offerFirst(entry);
+        }
+        lastUsedEntry.set(entry);
+    }
+
+    private void remove(final PoolEntry entry) {
+        entry.state.set(REMOVED);
+        if (entries.remove(entry)) {
+            totalConnections.decrementAndGet();
+            idleEntries.remove(entry);
+            try {
+                entry.physicalConnection.close();
+            } catch (SQLException e) {
+                // connection is discarded anyway
+            }
+        }
+    }
+
+    private void performHousekeeping() {
+        final long now = System.nanoTime();
+        for (PoolEntry entry : entries) {
+            if (totalConnections.get() <= minimumSize) {
+                break;
+            }
+            if (now - entry.lastReturnedNanos > idleTimeoutNanos && entry.state.compareAndSet(NOT_IN_USE, REMOVED)) {
+                remove(entry);
+            }
+        }
+        try {
+            while (!closed && totalConnections.get() < minimumSize) {
+                final PoolEntry entry = tryCreateEntry();
+                if (entry == null) {
+                    break;
+                }
+                release(entry);
+            }
+        } catch (SQLException e) {
+            // retried with the next housekeeping run
+        }
+    }
+
+    public int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    public int getActiveConnections() {
+        return (int) entries.stream().filter(entry -> entry.state.get() == IN_USE).count();
+    }
+
+    public int getIdleConnections() {
+        return (int) entries.stream().filter(entry -> entry.state.get() == NOT_IN_USE).count();
+    }
+
+    public int getWaitingThreads() {
+        return waitingThreads.get();
+    }
+
+    /**
+     * Closes all idle connections and stops housekeeping. Connections in use are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeping.shutdownNow();
+        for (PoolEntry entry : entries) {
+            if (entry.state.compareAndSet(NOT_IN_USE, REMOVED)) {
+                remove(entry);
+            }
+        }
+    }
+
+    /**
+     * Physical connection held by the pool together with its pool state.
+     */
+    private final class PoolEntry {
+
+        private final Connection physicalConnection;
+        private final AtomicInteger state = new AtomicInteger(IN_USE);
+        private final AtomicBoolean queued = new AtomicBoolean();
+        private volatile long lastReturnedNanos = System.nanoTime();
+
+        private PoolEntry(final Connection physicalConnection) {
+            this.physicalConnection = physicalConnection;
+        }
+
+        private boolean tryReserve() {
+            return state.compareAndSet(NOT_IN_USE, IN_USE);
+        }
+
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new LeasedConnectionHandler(this));
+        }
+    }
+
+    /**
+     * Delegates all calls to the physical connection, except for {@code close} returning it to the pool.
+     */
+    private final class LeasedConnectionHandler implements InvocationHandler {
+
+        private final PoolEntry entry;
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        private LeasedConnectionHandler(final PoolEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (returned.compareAndSet(false, true)) {
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned.get() || entry.physicalConnection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    if (returned.get() && method.getDeclaringClass() != Object.class) {
+                        throw new SQLException("Connection is closed");
+                    }
+                    try {
+                        return method.invoke(entry.physicalConnection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+
+    /**
+     * Builder for {@link ConnectionPool}s.
+     */
+    public static final class Builder {
+
+        private final Supplier<Connection> physicalConnectionFactory;
+        private int minimumSize = 0;
+        private int maximumSize = 10;
+        private Duration acquireTimeout = Duration.ofSeconds(30);
+        private Duration idleTimeout = Duration.ofMinutes(10);
+        private Duration validationTimeout = Duration.ofSeconds(5);
+
+        private Builder(final Supplier<Connection> physicalConnectionFactory) {
+            this.physicalConnectionFactory = physicalConnectionFactory;
+        }
+
+        public Builder minimumSize(final int minimumSize) {
+            this.minimumSize = minimumSize;
+            return this;
+        }
+
+        public Builder maximumSize(final int maximumSize) {
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public Builder acquireTimeout(final Duration acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+            return this;
+        }
+
+        public Builder idleTimeout(final Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        public Builder validationTimeout(final Duration validationTimeout) {
+            this.validationTimeout = validationTimeout;
+            return this;
+        }
+
+        public ConnectionPool build() {
+            if (maximumSize < 1 || minimumSize < 0 || minimumSize > maximumSize) {
+                throw new IllegalArgumentException(
+                        "Invalid pool size, minimum " + minimumSize + ", maximum " + maximumSize);
+            }
+            return new ConnectionPool(this);
+        }
+    }
+}
@@ -2,10 +2,22 @@ package de.henninglanghorst.functional.sql;
 
 import de.henninglanghorst.functional.sql.function.Function;
 import de.henninglanghorst.functional.sql.function.Supplier;
+import de.henninglanghorst.functional.sql.instrumentation.Instrumentation;
+import de.henninglanghorst.functional.sql.instrumentation.InstrumentationRegistry;
 import de.henninglanghorst.functional.util.Either;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Class for database operations.
@@ -28,13 +40,247 @@ public final class DatabaseOperationFunctions {
      */
     public static <R> Either<R, SQLException> doInDatabase(final Supplier<Connection> connectionFactory,
                                                            final Function<Connection, R> dbFunction) {
+        final Instrumentation instrumentation = InstrumentationRegistry.current();
+        final long start = System.nanoTime();
         try (Connection connection = connectionFactory.get()) {
+            instrumentation.connectionAcquired(System.nanoTime() - start);
             R result = dbFunction.apply(connection);
             return Either.left(result);
         } catch (SQLException e) {
+            instrumentation.operationFailed(e);
             return Either.right(e);
         }
     }
 
+    /**
+     * Like {@link #doInDatabase(Supplier, Function)}, but bounds all statements created by the function, including
+     * statements of composed functions, by a deadline. Every statement gets the remaining time as query timeout and is
+     * cancelled when the deadline passes, so a runaway query does not hold the connection beyond the deadline.
+     *
+     * @param connectionFactory {@link Supplier} providing the collection to be used.
+     * @param dbFunction        Function applied to the connection.
+     * @param deadline          Deadline of the operation, which may be shared with other operations.
+     * @param <R>               Type of the return value after successful execution.
+     * @return Either the return value of Type {@link R} or the {@link SQLException} in case of an error, which is a
+     * {@link DeadlineExceededException} if the deadline has passed.
+     */
+    public static <R> Either<R, SQLException> doInDatabase(final Supplier<Connection> connectionFactory,
+                                                           final Function<Connection, R> dbFunction,
+                                                           final Deadline deadline) {
+        return doInDatabase(connectionFactory,
+                connection -> DeadlineBoundConnection.applyWithin(connection, dbFunction, deadline));
+    }
+
+    /**
+     * Performs {@link #doInDatabase(Supplier, Function)} asynchronously on the given executor. For limiting the
+     * number of operations in flight and for timeouts see {@link AsyncDatabaseExecutor}.
+     *
+     * @param connectionFactory {@link Supplier} providing the collection to be used.
+     * @param dbFunction        Function applied to the connection.
+     * @param executor          Executor running the operation.
+     * @param <R>               Type of the return value after successful execution.
+     * @return Future completed with either the return value of type {@link R} or the {@link SQLException}.
+     */
+    public static <R> CompletableFuture<Either<R, SQLException>> doInDatabaseAsync(
+            final Supplier<Connection> connectionFactory,
+            final Function<Connection, R> dbFunction,
+            final Executor executor) {
+        return CompletableFuture.supplyAsync(() -> doInDatabase(connectionFactory, dbFunction), executor);
+    }
+
+    /**
+     * Splits a query on a numeric key into partitions and runs each partition on its own connection in the given
+     * {@link ForkJoinPool}, so that fetching and mapping the rows of the partitions happens in parallel. The results of
+     * the partitions are concatenated in ascending key order; if each partition query orders by key, the whole result
+     * is ordered by key.
+     * <p>
+     * The first {@link SQLException} of a partition is returned. The statements of partitions still running are then
+     * cancelled with {@link java.sql.Statement#cancel()}, and partitions which have not started yet fail as soon as they
+     * create a statement. The method returns only after all partitions have completed and released their connections.
+     *
+     * @param connectionFactory {@link Supplier} providing the connections, e.g. a {@link ConnectionPool} with at least
+     *                          {@code partitions} connections.
+     * @param keyRange          Range of keys queried.
+     * @param partitions        Number of partitions the key range is split into.
+     * @param rangeQuery        Creates the query function for the rows of a partition's key range, e.g. using
+     *                          {@code where id between ? and ? order by id}.
+     * @param pool              Pool running the partitions.
+     * @param <R>               Type of the rows.
+     * @return Either the rows of all partitions or the first {@link SQLException}.
+     */
+    public static <R> Either<List<R>, SQLException> doInDatabasePartitioned(
+            final Supplier<Connection> connectionFactory,
+            final KeyRange keyRange,
+            final int partitions,
+            final java.util.function.Function<KeyRange, Function<Connection, List<R>>> rangeQuery,
+            final ForkJoinPool pool) {
+        return performPartitioned(connectionFactory, keyRange.split(partitions), rangeQuery, pool, true);
+    }
+
+    /**
+     * Like {@link #doInDatabasePartitioned(Supplier, KeyRange, int, java.util.function.Function, ForkJoinPool)}, but
+     * concatenates the results of the partitions in the order in which the partitions complete.
+     *
+     * @param connectionFactory {@link Supplier} providing the connections.
+     * @param keyRange          Range of keys queried.
+     * @param partitions        Number of partitions the key range is split into.
+     * @param rangeQuery        Creates the query function for the rows of a partition's key range.
+     * @param pool              Pool running the partitions.
+     * @param <R>               Type of the rows.
+     * @return Either the rows of all partitions or the first {@link SQLException}.
+     */
+    public static <R> Either<List<R>, SQLException> doInDatabasePartitionedUnordered(
+            final Supplier<Connection> connectionFactory,
+            final KeyRange keyRange,
+            final int partitions,
+            final java.util.function.Function<KeyRange, Function<Connection, List<R>>> rangeQuery,
+            final ForkJoinPool pool) {
+        return performPartitioned(connectionFactory, keyRange.split(partitions), rangeQuery, pool, false);
+    }
+
+    private static <R> Either<List<R>, SQLException> performPartitioned(
+            final Supplier<Connection> connectionFactory,
+            final List<KeyRange> ranges,
+            final java.util.function.Function<KeyRange, Function<Connection, List<R>>> rangeQuery,
+            final ForkJoinPool pool,
+            final boolean ordered) {
+        final CompletableFuture<SQLException> firstFailure = new CompletableFuture<>();
+        final CompletableFuture<Void> cancellation = new CompletableFuture<>();
+        firstFailure.thenRun(() -> cancellation.complete(null));
+        final Queue<List<R>> completedPartitions = new ConcurrentLinkedQueue<>();
+        final List<CompletableFuture<Either<List<R>, SQLException>>> partitionResults = new ArrayList<>(ranges.size());
+        final CompletableFuture<?>[] partitionCompletions = new CompletableFuture<?>[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            final KeyRange range = ranges.get(i);
+            final CompletableFuture<Either<List<R>, SQLException>> partitionResult = CompletableFuture.supplyAsync(() -> {
+                final Function<Connection, List<R>> partitionQuery = rangeQuery.apply(range);
+                return doInDatabaseManagedBlocking(connectionFactory, connection ->
+                        DeadlineBoundConnection.applyCancellable(connection, partitionQuery, cancellation));
+            }, pool);
+            partitionResults.add(partitionResult);
+            partitionCompletions[i] = partitionResult
+                    .whenComplete((result, throwable) -> {
+                        if (throwable != null) {
+                            cancellation.complete(null);
+                        }
+                    })
+                    .thenAccept(result -> result.handle(completedPartitions::add, firstFailure::complete));
+        }
+        try {
+            CompletableFuture.allOf(partitionCompletions).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        if (firstFailure.isDone()) {
+            return Either.right(firstFailure.join());
+        }
+        final List<R> rows = new ArrayList<>();
+        if (ordered) {
+            partitionResults.forEach(partitionResult -> rows.addAll(partitionResult.join().left().get()));
+        } else {
+            completedPartitions.forEach(rows::addAll);
+        }
+        return Either.left(rows);
+    }
+
+    private static <R> Either<R, SQLException> doInDatabaseManagedBlocking(final Supplier<Connection> connectionFactory,
+                                                                           final Function<Connection, R> dbFunction) {
+        final DatabaseOperationBlocker<R> blocker = new DatabaseOperationBlocker<>(connectionFactory, dbFunction);
+        try {
+            ForkJoinPool.managedBlock(blocker);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Either.right(new SQLException("Interrupted while waiting for database operation", e));
+        }
+        return blocker.result;
+    }
+
+    /**
+     * Runs a blocking database operation in a {@link ForkJoinPool}, which may compensate the blocked worker.
+     */
+    private static final class DatabaseOperationBlocker<R> implements ForkJoinPool.ManagedBlocker {
+
+        private final Supplier<Connection> connectionFactory;
+        private final Function<Connection, R> dbFunction;
+        private Either<R, SQLException> result;
+
+        private DatabaseOperationBlocker(final Supplier<Connection> connectionFactory,
+                                         final Function<Connection, R> dbFunction) {
+            this.connectionFactory = connectionFactory;
+            this.dbFunction = dbFunction;
+        }
+
+        @Override
+        public boolean block() {
+            result = doInDatabase(connectionFactory, dbFunction);
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return result != null;
+        }
+    }
+
+    /**
+     * Creates a {@link Connection} and applies a function returning a lazily evaluated {@link Stream} on it, e.g. a
+     * {@link DatabaseQueryFunctions#streamingQuery(Function, Function, int)}. In contrast to
+     * {@link #doInDatabase(Supplier, Function)} the connection stays open until the returned stream is closed or
+     * completely consumed, so the stream should be used within a try-with-resources block.
+     *
+     * @param connectionFactory {@link Supplier} providing the collection to be used.
+     * @param dbFunction        Function applied to the connection returning a stream.
+     * @param <R>               Type of the stream elements.
+     * @return Either the stream of {@link R} or the {@link SQLException} in case of an error.
+     */
+    public static <R> Either<Stream<R>, SQLException> streamInDatabase(final Supplier<Connection> connectionFactory,
+                                                                       final Function<Connection, Stream<R>> dbFunction) {
+        final Connection connection;
+        try {
+            connection = connectionFactory.get();
+        } catch (SQLException e) {
+            return Either.right(e);
+        }
+        final Stream<R> stream;
+        try {
+            stream = dbFunction.apply(connection);
+        } catch (SQLException e) {
+            closeAfterFailure(connection, e);
+            return Either.right(e);
+        }
+        final ClosingSpliterator<R> spliterator = ClosingSpliterator.closingOnExhaustion(
+                stream.spliterator(),
+                () -> closeStreamAndConnection(stream, connection));
+        return Either.left(StreamSupport.stream(spliterator, false).onClose(spliterator.getCloseAction()));
+    }
+
+    private static void closeStreamAndConnection(final Stream<?> stream, final Connection connection) {
+        try {
+            stream.close();
+        } catch (RuntimeException e) {
+            try {
+                connection.close();
+            } catch (SQLException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new UncheckedSQLException(e);
+        }
+    }
+
+    private static void closeAfterFailure(final Connection connection, final SQLException failure) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+    }
 
-}
\ No newline at end of file
+}
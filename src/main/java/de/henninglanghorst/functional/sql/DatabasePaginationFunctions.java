@@ -0,0 +1,125 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Function;
+import de.henninglanghorst.functional.sql.function.Supplier;
+import de.henninglanghorst.functional.util.Either;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static de.henninglanghorst.functional.sql.DatabaseOperationFunctions.doInDatabase;
+import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.databaseQuery;
+import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.multipleRowExtraction;
+import static de.henninglanghorst.functional.sql.DatabaseStatementFunctions.statement;
+
+/**
+ * Class providing keyset pagination for reading large tables page by page.
+ * <p>
+ * Unlike {@code OFFSET} queries, which have to skip all preceding rows, every page is selected by the key of the last
+ * row of the preceding page ({@code where key > ? order by key}), so each page costs the same if the key column is
+ * indexed, however far the scan has progressed.
+ *
+ * @author Henning Langhorst
+ */
+public final class DatabasePaginationFunctions {
+
+    private DatabasePaginationFunctions() {
+    }
+
+    /**
+     * Reads all rows of a table or view ordered by a unique key column as lazily evaluated {@link Stream} of pages.
+     * <p>
+     * Every page is read on its own connection, which is closed before the page is returned, so no connection is held
+     * while the pages are processed. Rows inserted or deleted during the scan may or may not be seen, but no row is
+     * read twice. {@link SQLException}s occurring while reading a page are thrown as {@link UncheckedSQLException}.
+     * If the key extractor returns {@code null} for a row, an {@link IllegalStateException} is thrown.
+     *
+     * @param connectionFactory {@link Supplier} providing a connection for every page.
+     * @param table             Name of the table or view; it is inserted into the SQL text as it is.
+     * @param keyColumn         Name of the unique, indexed key column; it is inserted into the SQL text as it is.
+     * @param rowMapper         Function used for extracting single data records from {@link ResultSet}.
+     * @param keyExtractor      Function extracting the key column value from a mapped row.
+     * @param pageSize          Maximum number of rows per page.
+     * @param <K>               Type of the key column.
+     * @param <R>               Type to which every {@link ResultSet} entry is mapped.
+     * @return Stream of non-empty pages in key order.
+     */
+    public static <K, R> Stream<List<R>> keysetPages(final Supplier<Connection> connectionFactory,
+                                                     final String table,
+                                                     final String keyColumn,
+                                                     final Function<ResultSet, R> rowMapper,
+                                                     final java.util.function.Function<R, K> keyExtractor,
+                                                     final int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        final KeysetPageSpliterator<K, R> spliterator = new KeysetPageSpliterator<>(
+                connectionFactory,
+                "select * from " + table + " order by " + keyColumn + " limit ?",
+                "select * from " + table + " where " + keyColumn + " > ? order by " + keyColumn + " limit ?",
+                rowMapper,
+                keyExtractor,
+                pageSize);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     * Reads one page after another, starting after the key of the last row read.
+     */
+    private static final class KeysetPageSpliterator<K, R> extends Spliterators.AbstractSpliterator<List<R>> {
+
+        private final Supplier<Connection> connectionFactory;
+        private final String firstPageSql;
+        private final String nextPageSql;
+        private final Function<ResultSet, List<R>> pageExtraction;
+        private final java.util.function.Function<R, K> keyExtractor;
+        private final int pageSize;
+        private K lastKey;
+        private boolean firstPage = true;
+        private boolean exhausted;
+
+        private KeysetPageSpliterator(final Supplier<Connection> connectionFactory,
+                                      final String firstPageSql,
+                                      final String nextPageSql,
+                                      final Function<ResultSet, R> rowMapper,
+                                      final java.util.function.Function<R, K> keyExtractor,
+                                      final int pageSize) {
+            super(Long.MAX_VALUE, ORDERED | NONNULL);
+            this.connectionFactory = connectionFactory;
+            this.firstPageSql = firstPageSql;
+            this.nextPageSql = nextPageSql;
+            this.pageExtraction = multipleRowExtraction(rowMapper);
+            this.keyExtractor = keyExtractor;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean tryAdvance(final java.util.function.Consumer<? super List<R>> action) {
+            if (exhausted) {
+                return false;
+            }
+            final ParameterizedStatement pageStatement = firstPage
+                    ? statement(firstPageSql, pageSize)
+                    : statement(nextPageSql, lastKey, pageSize);
+            final Either<List<R>, SQLException> page =
+                    doInDatabase(connectionFactory, databaseQuery(pageStatement, pageExtraction));
+            final List<R> rows = page.orElseThrow(UncheckedSQLException::new);
+            exhausted = rows.size() < pageSize;
+            if (rows.isEmpty()) {
+                return false;
+            }
+            lastKey = keyExtractor.apply(rows.get(rows.size() - 1));
+            if (lastKey == null) {
+                throw new IllegalStateException("Key of last row of page must not be null: " + rows.get(rows.size() - 1));
+            }
+            firstPage = false;
+            action.accept(rows);
+            return true;
+        }
+    }
+}
@@ -1,14 +1,23 @@
 package de.henninglanghorst.functional.sql;
 
+import de.henninglanghorst.functional.sql.function.Consumer;
 import de.henninglanghorst.functional.sql.function.Function;
 import de.henninglanghorst.functional.sql.function.Supplier;
+import de.henninglanghorst.functional.sql.instrumentation.Instrumentation;
+import de.henninglanghorst.functional.sql.instrumentation.InstrumentationRegistry;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Class providing functions for SQL queries, usable with {@link DatabaseOperationFunctions#doInDatabase(Supplier, Function)}.
@@ -17,6 +26,9 @@ import java.util.List;
  */
 public final class DatabaseQueryFunctions {
 
+    private static final int INITIAL_COLUMN_CAPACITY = 64;
+    private static final int MAX_COLUMN_CAPACITY = Integer.MAX_VALUE - 8;
+
     private DatabaseQueryFunctions() {
     }
 
@@ -37,9 +49,187 @@ public final class DatabaseQueryFunctions {
     private static <R> R performQueryOnConnection(final Connection connection,
                                                   final Function<Connection, PreparedStatement> preparedStatementFactory,
                                                   final Function<ResultSet, R> resultSetMapper) throws SQLException {
-        try (PreparedStatement preparedStatement = preparedStatementFactory.apply(connection)) {
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                return resultSetMapper.apply(resultSet);
+        final Instrumentation instrumentation = InstrumentationRegistry.current();
+        final String sql = sqlOf(preparedStatementFactory);
+        try {
+            final long start = System.nanoTime();
+            try (PreparedStatement preparedStatement = preparedStatementFactory.apply(connection)) {
+                final long prepared = System.nanoTime();
+                instrumentation.statementPrepared(sql, prepared - start);
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    final long executed = System.nanoTime();
+                    instrumentation.queryExecuted(sql, executed - prepared);
+                    final R result = resultSetMapper.apply(resultSet);
+                    instrumentation.rowsMapped(sql, System.nanoTime() - executed, rowCountOf(result));
+                    return result;
+                }
+            }
+        } catch (SQLException e) {
+            instrumentation.statementFailed(sql, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Marks a database function as read-only, so that a {@link ReplicaRouter} may run it on a replica. The function
+     * must not modify data; functions which are not marked always run on the primary database.
+     *
+     * @param dbFunction Function only reading data, e.g. created by {@link #databaseQuery(Function, Function)}.
+     * @param <R>        Type of the result.
+     * @return The function marked as read-only.
+     */
+    public static <R> Function<Connection, R> readOnly(final Function<Connection, R> dbFunction) {
+        return dbFunction instanceof ReadOnlyFunction ? dbFunction : new ReadOnlyFunction<>(dbFunction);
+    }
+
+    /**
+     * Returns the SQL text of a statement factory for instrumentation.
+     *
+     * @param preparedStatementFactory Statement factory.
+     * @return The SQL text if the factory is a {@link ParameterizedStatement}, {@link Instrumentation#UNKNOWN_SQL}
+     * otherwise.
+     */
+    static String sqlOf(final Function<Connection, PreparedStatement> preparedStatementFactory) {
+        return preparedStatementFactory instanceof ParameterizedStatement
+                ? ((ParameterizedStatement) preparedStatementFactory).getSql()
+                : Instrumentation.UNKNOWN_SQL;
+    }
+
+    private static long rowCountOf(final Object extractionResult) {
+        if (extractionResult instanceof Collection) {
+            return ((Collection<?>) extractionResult).size();
+        }
+        if (extractionResult instanceof int[]) {
+            return ((int[]) extractionResult).length;
+        }
+        if (extractionResult instanceof long[]) {
+            return ((long[]) extractionResult).length;
+        }
+        if (extractionResult instanceof double[]) {
+            return ((double[]) extractionResult).length;
+        }
+        if (extractionResult instanceof Optional) {
+            return ((Optional<?>) extractionResult).isPresent() ? 1 : 0;
+        }
+        if (extractionResult instanceof ExtractionStatistics) {
+            return ((ExtractionStatistics) extractionResult).getRowCount();
+        }
+        return extractionResult == null ? 0 : 1;
+    }
+
+    /**
+     * Returns a function which performs a SQL query on the database and provides the rows as lazily evaluated
+     * {@link Stream}. The rows are read from the open {@link ResultSet} while the stream is consumed, so only
+     * {@code fetchSize} rows are held in memory at a time.
+     * <p>
+     * The {@link PreparedStatement} and {@link ResultSet} are closed when the stream is closed, all rows have been
+     * consumed or reading a row fails. The stream must be consumed before the connection is closed, see
+     * {@link DatabaseOperationFunctions#streamInDatabase(Supplier, Function)}. {@link SQLException}s occurring while
+     * reading rows are thrown as {@link UncheckedSQLException}.
+     *
+     * @param prepStmtFactory Creates the select statement using the given {@link Connection}.
+     * @param resultSetMapper Function used for extracting single data records from {@link ResultSet}.
+     * @param fetchSize       Number of rows fetched from the database at once, see
+     *                        {@link PreparedStatement#setFetchSize(int)}.
+     * @param <R>             Type to which every {@link ResultSet} entry is mapped.
+     * @return A Function returning a Stream of elements of type {@link R}.
+     */
+    public static <R> Function<Connection, Stream<R>> streamingQuery(
+            final Function<Connection, PreparedStatement> prepStmtFactory,
+            final Function<ResultSet, R> resultSetMapper,
+            final int fetchSize) {
+        return connection -> performStreamingQueryOnConnection(connection, prepStmtFactory, resultSetMapper, fetchSize);
+    }
+
+    private static <R> Stream<R> performStreamingQueryOnConnection(
+            final Connection connection,
+            final Function<Connection, PreparedStatement> preparedStatementFactory,
+            final Function<ResultSet, R> resultSetMapper,
+            final int fetchSize) throws SQLException {
+        final Instrumentation instrumentation = InstrumentationRegistry.current();
+        final String sql = sqlOf(preparedStatementFactory);
+        final long start = System.nanoTime();
+        final PreparedStatement preparedStatement;
+        final ResultSet resultSet;
+        try {
+            preparedStatement = preparedStatementFactory.apply(connection);
+        } catch (SQLException e) {
+            instrumentation.statementFailed(sql, e);
+            throw e;
+        }
+        try {
+            final long prepared = System.nanoTime();
+            instrumentation.statementPrepared(sql, prepared - start);
+            preparedStatement.setFetchSize(fetchSize);
+            resultSet = preparedStatement.executeQuery();
+            instrumentation.queryExecuted(sql, System.nanoTime() - prepared);
+        } catch (SQLException e) {
+            instrumentation.statementFailed(sql, e);
+            preparedStatement.close();
+            throw e;
+        }
+        final Function<ResultSet, R> boundMapper;
+        try {
+            boundMapper = ResultSetBoundMapper.bind(resultSetMapper, resultSet);
+        } catch (SQLException | RuntimeException e) {
+            try {
+                closeStatement(preparedStatement, resultSet);
+            } catch (UncheckedSQLException closeFailure) {
+                e.addSuppressed(closeFailure.getCause());
+            }
+            throw e;
+        }
+        final ClosingSpliterator<R> spliterator = ClosingSpliterator.closingOnExhaustion(
+                new ResultSetSpliterator<>(resultSet, boundMapper),
+                () -> closeStatement(preparedStatement, resultSet));
+        return StreamSupport.stream(spliterator, false).onClose(spliterator.getCloseAction());
+    }
+
+    private static void closeStatement(final PreparedStatement preparedStatement, final ResultSet resultSet) {
+        SQLException failure = null;
+        try {
+            resultSet.close();
+        } catch (SQLException e) {
+            failure = e;
+        }
+        try {
+            preparedStatement.close();
+        } catch (SQLException e) {
+            if (failure == null) {
+                failure = e;
+            } else {
+                failure.addSuppressed(e);
+            }
+        }
+        if (failure != null) {
+            throw new UncheckedSQLException(failure);
+        }
+    }
+
+    /**
+     * Provides the rows of a {@link ResultSet} mapped by a mapper function.
+     */
+    private static final class ResultSetSpliterator<R> extends Spliterators.AbstractSpliterator<R> {
+
+        private final ResultSet resultSet;
+        private final Function<ResultSet, R> resultSetMapper;
+
+        private ResultSetSpliterator(final ResultSet resultSet, final Function<ResultSet, R> resultSetMapper) {
+            super(Long.MAX_VALUE, ORDERED | NONNULL);
+            this.resultSet = resultSet;
+            this.resultSetMapper = resultSetMapper;
+        }
+
+        @Override
+        public boolean tryAdvance(final java.util.function.Consumer<? super R> action) {
+            try {
+                if (!resultSet.next()) {
+                    return false;
+                }
+                action.accept(resultSetMapper.apply(resultSet));
+                return true;
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
             }
         }
     }
@@ -57,14 +247,211 @@ public final class DatabaseQueryFunctions {
 
     private static <R> List<R> extractRowsFromResultSet(final ResultSet resultSet,
                                                         final Function<ResultSet, R> resultSetMapper) throws SQLException {
+        final Function<ResultSet, R> boundMapper = ResultSetBoundMapper.bind(resultSetMapper, resultSet);
         List<R> result = new ArrayList<>();
         while (resultSet.next()) {
-            final R entry = resultSetMapper.apply(resultSet);
+            final R entry = boundMapper.apply(resultSet);
             result.add(entry);
         }
         return result;
     }
 
+    /**
+     * Creates a function which passes every row of a {@link ResultSet} to a consumer without collecting the rows.
+     *
+     * @param rowConsumer Consumer invoked once per row with the {@link ResultSet} positioned on that row.
+     * @return A Function returning the number of processed rows and the time needed.
+     */
+    public static Function<ResultSet, ExtractionStatistics> rowCallbackExtraction(final Consumer<ResultSet> rowConsumer) {
+        return resultSet -> passRowsToConsumer(resultSet, rowConsumer);
+    }
+
+    /**
+     * Creates a function which maps every row of a {@link ResultSet} using a given mapper function and passes the
+     * result to a consumer without collecting the rows.
+     *
+     * @param resultSetMapper Function used for extracting single data records from {@link ResultSet}.
+     * @param rowConsumer     Consumer invoked once per mapped row.
+     * @param <R>             Type to which every {@link ResultSet} entry is mapped.
+     * @return A Function returning the number of processed rows and the time needed.
+     */
+    public static <R> Function<ResultSet, ExtractionStatistics> rowCallbackExtraction(
+            final Function<ResultSet, R> resultSetMapper,
+            final Consumer<R> rowConsumer) {
+        return resultSet -> {
+            final Function<ResultSet, R> boundMapper = ResultSetBoundMapper.bind(resultSetMapper, resultSet);
+            return passRowsToConsumer(resultSet, rs -> rowConsumer.accept(boundMapper.apply(rs)));
+        };
+    }
+
+    private static ExtractionStatistics passRowsToConsumer(final ResultSet resultSet,
+                                                           final Consumer<ResultSet> rowConsumer) throws SQLException {
+        final long start = System.nanoTime();
+        long rowCount = 0;
+        while (resultSet.next()) {
+            rowConsumer.accept(resultSet);
+            rowCount++;
+        }
+        return new ExtractionStatistics(rowCount, System.nanoTime() - start);
+    }
+
+    /**
+     * Creates a function which extracts the values of an integer column from all rows of a {@link ResultSet} into an
+     * {@code int[]} without boxing. A {@code NULL} value fails the extraction.
+     *
+     * @param columnIndex Index of the column, starting with 1.
+     * @return A Function returning the column values in row order.
+     */
+    public static Function<ResultSet, int[]> intColumnExtraction(final int columnIndex) {
+        return resultSet -> extractIntColumn(resultSet, columnIndex, false, 0);
+    }
+
+    /**
+     * Creates a function which extracts the values of an integer column from all rows of a {@link ResultSet} into an
+     * {@code int[]} without boxing.
+     *
+     * @param columnIndex     Index of the column, starting with 1.
+     * @param nullReplacement Value used for {@code NULL} values.
+     * @return A Function returning the column values in row order.
+     */
+    public static Function<ResultSet, int[]> intColumnExtraction(final int columnIndex, final int nullReplacement) {
+        return resultSet -> extractIntColumn(resultSet, columnIndex, true, nullReplacement);
+    }
+
+    private static int[] extractIntColumn(final ResultSet resultSet, final int columnIndex,
+                                          final boolean replaceNull, final int nullReplacement) throws SQLException {
+        int[] values = new int[INITIAL_COLUMN_CAPACITY];
+        int size = 0;
+        while (resultSet.next()) {
+            int value = resultSet.getInt(columnIndex);
+            if (value == 0 && resultSet.wasNull()) {
+                value = nullValue(replaceNull, columnIndex, size, nullReplacement);
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grownCapacity(size));
+            }
+            values[size++] = value;
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Creates a function which extracts the values of a long integer column from all rows of a {@link ResultSet} into
+     * a {@code long[]} without boxing. A {@code NULL} value fails the extraction.
+     *
+     * @param columnIndex Index of the column, starting with 1.
+     * @return A Function returning the column values in row order.
+     */
+    public static Function<ResultSet, long[]> longColumnExtraction(final int columnIndex) {
+        return resultSet -> extractLongColumn(resultSet, columnIndex, false, 0L);
+    }
+
+    /**
+     * Creates a function which extracts the values of a long integer column from all rows of a {@link ResultSet} into
+     * a {@code long[]} without boxing.
+     *
+     * @param columnIndex     Index of the column, starting with 1.
+     * @param nullReplacement Value used for {@code NULL} values.
+     * @return A Function returning the column values in row order.
+     */
+    public static Function<ResultSet, long[]> longColumnExtraction(final int columnIndex, final long nullReplacement) {
+        return resultSet -> extractLongColumn(resultSet, columnIndex, true, nullReplacement);
+    }
+
+    private static long[] extractLongColumn(final ResultSet resultSet, final int columnIndex,
+                                            final boolean replaceNull, final long nullReplacement) throws SQLException {
+        long[] values = new long[INITIAL_COLUMN_CAPACITY];
+        int size = 0;
+        while (resultSet.next()) {
+            long value = resultSet.getLong(columnIndex);
+            if (value == 0L && resultSet.wasNull()) {
+                value = nullValue(replaceNull, columnIndex, size, nullReplacement);
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grownCapacity(size));
+            }
+            values[size++] = value;
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Creates a function which extracts the values of a floating point column from all rows of a {@link ResultSet}
+     * into a {@code double[]} without boxing. A {@code NULL} value fails the extraction.
+     *
+     * @param columnIndex Index of the column, starting with 1.
+     * @return A Function returning the column values in row order.
+     */
+    public static Function<ResultSet, double[]> doubleColumnExtraction(final int columnIndex) {
+        return resultSet -> extractDoubleColumn(resultSet, columnIndex, false, 0.0);
+    }
+
+    /**
+     * Creates a function which extracts the values of a floating point column from all rows of a {@link ResultSet}
+     * into a {@code double[]} without boxing.
+     *
+     * @param columnIndex     Index of the column, starting with 1.
+     * @param nullReplacement Value used for {@code NULL} values, e.g. {@link Double#NaN}.
+     * @return A Function returning the column values in row order.
+     */
+    public static Function<ResultSet, double[]> doubleColumnExtraction(final int columnIndex,
+                                                                       final double nullReplacement) {
+        return resultSet -> extractDoubleColumn(resultSet, columnIndex, true, nullReplacement);
+    }
+
+    private static double[] extractDoubleColumn(final ResultSet resultSet, final int columnIndex,
+                                                final boolean replaceNull, final double nullReplacement)
+            throws SQLException {
+        double[] values = new double[INITIAL_COLUMN_CAPACITY];
+        int size = 0;
+        while (resultSet.next()) {
+            double value = resultSet.getDouble(columnIndex);
+            if (value == 0.0 && resultSet.wasNull()) {
+                value = nullValue(replaceNull, columnIndex, size, nullReplacement);
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grownCapacity(size));
+            }
+            values[size++] = value;
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    private static int nullValue(final boolean replaceNull, final int columnIndex, final int row,
+                                 final int nullReplacement) throws SQLException {
+        if (!replaceNull) {
+            throw nullValueInColumn(columnIndex, row);
+        }
+        return nullReplacement;
+    }
+
+    private static long nullValue(final boolean replaceNull, final int columnIndex, final int row,
+                                  final long nullReplacement) throws SQLException {
+        if (!replaceNull) {
+            throw nullValueInColumn(columnIndex, row);
+        }
+        return nullReplacement;
+    }
+
+    private static double nullValue(final boolean replaceNull, final int columnIndex, final int row,
+                                    final double nullReplacement) throws SQLException {
+        if (!replaceNull) {
+            throw nullValueInColumn(columnIndex, row);
+        }
+        return nullReplacement;
+    }
+
+    private static SQLException nullValueInColumn(final int columnIndex, final int row) {
+        return new SQLException("Null value in column " + columnIndex + " of row " + (row + 1));
+    }
+
+    private static int grownCapacity(final int size) {
+        if (size >= MAX_COLUMN_CAPACITY) {
+            throw new OutOfMemoryError("Column exceeds maximum array size");
+        }
+        return (int) Math.min(MAX_COLUMN_CAPACITY, size + (long) (size >> 1) + 1);
+    }
+
     /**
      * Creates a function which extracts one data record from a {@link ResultSet} using a given mapper function.
      *
@@ -79,14 +466,43 @@ public final class DatabaseQueryFunctions {
     private static <R> R extractSingleRowFromResultSet(final ResultSet resultSet,
                                                        final Function<ResultSet, R> resultSetMapper) throws SQLException {
         if (!resultSet.next()) {
-            throw new SQLException("No data found");
+            throw new NoDataFoundException();
         }
         final R entry = resultSetMapper.apply(resultSet);
         if (resultSet.next()) {
-            throw new SQLException("More than one record in result");
+            throw new TooManyRowsException();
         }
         return entry;
     }
 
+    /**
+     * Creates a function which extracts at most one data record from a {@link ResultSet} using a given mapper
+     * function. Unlike {@link #singleRowExtraction(Function)}, a missing row is not an error, so lookups which often
+     * miss do not pay for an exception.
+     *
+     * @param resultSetMapper Function used for extracting a single data record from {@link ResultSet}; it must not
+     *                        return {@code null}.
+     * @param <R>             Type to which the {@link ResultSet} row is mapped.
+     * @return A Function returning the element of type {@link R} from the {@link ResultSet} or an empty
+     * {@link Optional} if there is no row.
+     */
+    public static <R> Function<ResultSet, Optional<R>> optionalRowExtraction(
+            final Function<ResultSet, R> resultSetMapper) {
+        return resultSet -> extractOptionalRowFromResultSet(resultSet, resultSetMapper);
+    }
+
+    private static <R> Optional<R> extractOptionalRowFromResultSet(final ResultSet resultSet,
+                                                                   final Function<ResultSet, R> resultSetMapper)
+            throws SQLException {
+        if (!resultSet.next()) {
+            return Optional.empty();
+        }
+        final R entry = resultSetMapper.apply(resultSet);
+        if (resultSet.next()) {
+            throw new TooManyRowsException();
+        }
+        return Optional.of(entry);
+    }
+
 
 }
@@ -1,10 +1,7 @@
 package de.henninglanghorst.functional.sql;
 
-import de.henninglanghorst.functional.sql.function.Function;
-
 import java.sql.Connection;
 import java.sql.PreparedStatement;
-import java.sql.SQLException;
 
 /**
  * Provides Functions for creating {@link PreparedStatement}s.
@@ -23,8 +20,8 @@ public class DatabaseStatementFunctions {
      * @param sql SQL statement to be used in {@link Connection#prepareStatement(String)} when preparing the statement.
      * @return Function preparing a statement from a connection.
      */
-    public static Function<Connection, PreparedStatement> statement(final String sql) {
-        return connection -> connection.prepareStatement(sql);
+    public static ParameterizedStatement statement(final String sql) {
+        return new ParameterizedStatement(sql);
     }
 
 
@@ -37,18 +34,78 @@ public class DatabaseStatementFunctions {
      * @param parameters Parameters to be set on {@link PreparedStatement}.
      * @return Function preparing a statement from a connection.
      */
-    public static Function<Connection, PreparedStatement> statement(final String sql, Object... parameters) {
-        return connection -> prepareStatementWithParameters(connection, sql, parameters);
+    public static ParameterizedStatement statement(final String sql, Object... parameters) {
+        return new ParameterizedStatement(sql, parameters);
+    }
+
+    /**
+     * Returns a function creating a {@link PreparedStatement} with the given SQL statement from a {@link Connection}
+     * whose parameters are set by a typed binder, e.g.
+     * {@code statement("select * from Person where id = ?", parameters -> parameters.setInt(id))}.
+     *
+     * @param sql    SQL statement to be used in {@link Connection#prepareStatement(String)} when preparing the
+     *               statement.
+     * @param binder Binder setting the parameters on {@link PreparedStatement} without boxing.
+     * @return Function preparing a statement from a connection.
+     */
+    public static ParameterizedStatement statement(final String sql, final ParameterBinder binder) {
+        return new ParameterizedStatement(sql, binder);
+    }
+
+    /**
+     * Returns a factory for multi-row insert statements of the form
+     * {@code insert into table (column, ...) values (?, ...), (?, ...), ...}.
+     *
+     * @param table     Name of the table.
+     * @param rowBinder Sets the parameters of a single row in the order of the columns.
+     * @param columns   Names of the inserted columns.
+     * @param <T>       Type of the row objects.
+     * @return Factory creating chunked statements for a collection of rows.
+     */
+    public static <T> MultiRowStatements<T> multiRowInsert(final String table,
+                                                           final RowBinder<T> rowBinder,
+                                                           final String... columns) {
+        return new MultiRowStatements<>(
+                "insert into " + table + " (" + String.join(", ", columns) + ") values ", columns.length, rowBinder);
+    }
+
+    /**
+     * Returns a factory for multi-row merge statements (upserts) of the form
+     * {@code merge into table (column, ...) key (keyColumn, ...) values (?, ...), (?, ...), ...} as supported by H2.
+     *
+     * @param table      Name of the table.
+     * @param keyColumns Names of the columns identifying existing rows.
+     * @param rowBinder  Sets the parameters of a single row in the order of the columns.
+     * @param columns    Names of the inserted or updated columns.
+     * @param <T>        Type of the row objects.
+     * @return Factory creating chunked statements for a collection of rows.
+     */
+    public static <T> MultiRowStatements<T> multiRowMerge(final String table,
+                                                          final String[] keyColumns,
+                                                          final RowBinder<T> rowBinder,
+                                                          final String... columns) {
+        return new MultiRowStatements<>(
+                "merge into " + table + " (" + String.join(", ", columns) + ") key ("
+                        + String.join(", ", keyColumns) + ") values ",
+                columns.length, rowBinder);
     }
 
-    private static PreparedStatement prepareStatementWithParameters(final Connection connection,
-                                                                    final String sql,
-                                                                    final Object... parameters) throws SQLException {
-        final PreparedStatement preparedStatement = connection.prepareStatement(sql);
-        for (int i = 0; i < parameters.length; i++) {
-            preparedStatement.setObject(i + 1, parameters[i]);
+    /**
+     * Returns a comma separated list of the given number of parameter placeholders, e.g. {@code ?, ?, ?} for use in
+     * an {@code IN} clause.
+     *
+     * @param count Number of placeholders.
+     * @return Placeholders for the given number of parameters.
+     */
+    public static String placeholders(final int count) {
+        final StringBuilder placeholders = new StringBuilder(Math.max(0, count * 3 - 2));
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                placeholders.append(", ");
+            }
+            placeholders.append('?');
         }
-        return preparedStatement;
+        return placeholders.toString();
     }
 
 }
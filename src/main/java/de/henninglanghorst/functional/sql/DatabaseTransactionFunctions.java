@@ -5,6 +5,9 @@ import de.henninglanghorst.functional.sql.function.Supplier;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Class providing functions for transaction handling, usable with
@@ -14,6 +17,8 @@ import java.sql.SQLException;
  */
 public final class DatabaseTransactionFunctions {
 
+    private static final ThreadLocal<CommitScope> CURRENT_COMMIT_SCOPE = new ThreadLocal<>();
+
     private DatabaseTransactionFunctions() {
     }
 
@@ -26,19 +31,125 @@ public final class DatabaseTransactionFunctions {
      */
     public static <T> Function<Connection, T> withinTransaction(Function<Connection, T> databaseOperation) {
         final Function<Connection, T> performWithinTransaction =
-                connection -> performWithinTransaction(databaseOperation, connection);
+                connection -> performWithinTransaction(databaseOperation, connection, false);
+        return connection -> preserveAutoCommit(connection, performWithinTransaction);
+    }
+
+    /**
+     * Performs the given database operation within a transaction shared by several independent operations, e.g. of a
+     * {@link GroupCommitExecutor}. A transaction of {@link #withinTransaction(Function)} nested in the operation
+     * fails with an {@link SQLException}, because its commit would commit the shared transaction prematurely.
+     *
+     * @param databaseOperation Operation to be performed within a shared transaction.
+     * @param <T>               Type of the result of the database operation.
+     * @return A function performing transaction handling around the given function.
+     */
+    static <T> Function<Connection, T> withinSharedTransaction(final Function<Connection, T> databaseOperation) {
+        final Function<Connection, T> performWithinTransaction =
+                connection -> performWithinTransaction(databaseOperation, connection, true);
         return connection -> preserveAutoCommit(connection, performWithinTransaction);
     }
 
+    /**
+     * Performs the given database operation within a transaction and retries the whole transaction if it fails with
+     * an exception the retry policy classifies as retryable, e.g. a deadlock or a serialization failure.
+     *
+     * @param databaseOperation Operation to be performed within a transaction, which may be applied several times.
+     * @param retryPolicy       Policy deciding about retries and the backoff between them.
+     * @param <T>               Type of the result of the database operation.
+     * @return A function performing transaction handling and retries around the given function.
+     */
+    public static <T> Function<Connection, T> withinTransaction(final Function<Connection, T> databaseOperation,
+                                                                final RetryPolicy retryPolicy) {
+        final Function<Connection, T> transaction = withinTransaction(databaseOperation);
+        return connection -> performWithRetries(transaction, retryPolicy, connection);
+    }
+
+    private static <T> T performWithRetries(final Function<Connection, T> transaction,
+                                            final RetryPolicy retryPolicy,
+                                            final Connection connection) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                final T result = transaction.apply(connection);
+                if (attempt > 1) {
+                    retryPolicy.recovered();
+                }
+                return result;
+            } catch (SQLException e) {
+                if (!retryPolicy.shouldRetry(e, attempt)) {
+                    throw e;
+                }
+                backOff(retryPolicy.backoffNanos(attempt), e);
+            }
+        }
+    }
+
+    private static void backOff(final long backoffNanos, final SQLException failure) throws SQLException {
+        try {
+            TimeUnit.NANOSECONDS.sleep(backoffNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.addSuppressed(e);
+            throw failure;
+        }
+    }
+
     private static <T> T performWithinTransaction(final Function<Connection, T> databaseOperation,
-                                                  final Connection connection) throws SQLException {
+                                                  final Connection connection,
+                                                  final boolean shared) throws SQLException {
+        final CommitScope enclosingScope = CURRENT_COMMIT_SCOPE.get();
+        if (enclosingScope != null && enclosingScope.shared) {
+            throw new SQLException("Transaction must not be nested within a shared transaction");
+        }
+        final CommitScope commitScope = new CommitScope(enclosingScope, shared);
+        CURRENT_COMMIT_SCOPE.set(commitScope);
+        final T result;
         try {
-            final T result = databaseOperation.apply(connection);
+            result = databaseOperation.apply(connection);
             connection.commit();
-            return result;
         } catch (SQLException e) {
             connection.rollback();
             throw e;
+        } catch (RuntimeException e) {
+            rollbackAfterFailure(connection, e);
+            throw e;
+        } finally {
+            commitScope.close();
+        }
+        commitScope.notifyUpdateListeners();
+        return result;
+    }
+
+    /**
+     * Notifies an update listener about an update again after the transaction running on the current thread has been
+     * committed, so that readers which have seen the data before the commit are invalidated too. Does nothing if no
+     * transaction is running.
+     *
+     * @param updateListener Listener to be notified.
+     * @param sql            SQL text of the update statement.
+     */
+    static void afterCommit(final UpdateListener updateListener, final String sql) {
+        final CommitScope commitScope = CURRENT_COMMIT_SCOPE.get();
+        if (commitScope != null) {
+            commitScope.updates.add(new PendingNotification(updateListener, sql));
+        }
+    }
+
+    /**
+     * Checks whether a transaction of {@link #withinTransaction(Function)} is running on the current thread, so that
+     * data read by it may not have been committed yet.
+     *
+     * @return {@code true} if a transaction is running.
+     */
+    static boolean isWithinTransaction() {
+        return CURRENT_COMMIT_SCOPE.get() != null;
+    }
+
+    private static void rollbackAfterFailure(final Connection connection, final RuntimeException failure) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
         }
     }
 
@@ -48,13 +159,69 @@ public final class DatabaseTransactionFunctions {
         if (autoCommitInitiallyEnabled) {
             connection.setAutoCommit(false);
         }
-        final T result = actualOperation.apply(connection);
-
+        final T result;
+        try {
+            result = actualOperation.apply(connection);
+        } catch (SQLException | RuntimeException e) {
+            if (autoCommitInitiallyEnabled) {
+                restoreAutoCommitAfterFailure(connection, e);
+            }
+            throw e;
+        }
         if (autoCommitInitiallyEnabled) {
             connection.setAutoCommit(true);
         }
-
         return result;
     }
 
+    private static void restoreAutoCommitAfterFailure(final Connection connection, final Exception failure) {
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Updates of a running transaction whose listeners are notified after the commit.
+     */
+    private static final class CommitScope {
+
+        private final CommitScope enclosingScope;
+        private final boolean shared;
+        private final List<PendingNotification> updates = new ArrayList<>();
+
+        private CommitScope(final CommitScope enclosingScope, final boolean shared) {
+            this.enclosingScope = enclosingScope;
+            this.shared = shared;
+        }
+
+        private void close() {
+            if (enclosingScope == null) {
+                CURRENT_COMMIT_SCOPE.remove();
+            } else {
+                CURRENT_COMMIT_SCOPE.set(enclosingScope);
+            }
+        }
+
+        private void notifyUpdateListeners() {
+            for (PendingNotification update : updates) {
+                update.updateListener.afterUpdate(update.sql);
+            }
+        }
+    }
+
+    /**
+     * Update listener together with the SQL text it has to be notified about.
+     */
+    private static final class PendingNotification {
+
+        private final UpdateListener updateListener;
+        private final String sql;
+
+        private PendingNotification(final UpdateListener updateListener, final String sql) {
+            this.updateListener = updateListener;
+            this.sql = sql;
+        }
+    }
 }
@@ -2,11 +2,14 @@ package de.henninglanghorst.functional.sql;
 
 import de.henninglanghorst.functional.sql.function.Function;
 import de.henninglanghorst.functional.sql.function.Supplier;
+import de.henninglanghorst.functional.sql.instrumentation.Instrumentation;
+import de.henninglanghorst.functional.sql.instrumentation.InstrumentationRegistry;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.Collection;
+import java.util.Iterator;
 
 /**
  * Class providing functions for updating database tables, usable with
@@ -16,6 +19,9 @@ import java.util.Collection;
  */
 public final class DatabaseUpdateFunctions {
 
+    private static final UpdateListener NO_UPDATE_LISTENER = sql -> {
+    };
+
     private DatabaseUpdateFunctions() {
     }
 
@@ -26,14 +32,58 @@ public final class DatabaseUpdateFunctions {
      * @return A Function performing the update and returning an {@link Integer} value.
      */
     public static Function<Connection, Integer> databaseUpdate(final Function<Connection, PreparedStatement> psFactory) {
-        return connection -> performUpdateOnConnection(connection, psFactory);
+        return databaseUpdate(psFactory, NO_UPDATE_LISTENER);
+    }
+
+    /**
+     * Returns a function which performs a SQL update on the database and notifies a listener about it, e.g. a
+     * {@link QueryCache} invalidating its cached query results. The listener is notified after the statement has been
+     * executed and, if the update runs within {@link DatabaseTransactionFunctions#withinTransaction(Function)}, again
+     * after the transaction has been committed. Only statements created by a {@link ParameterizedStatement} are
+     * reported, because the listener needs their SQL text.
+     *
+     * @param psFactory      Creates the update statement using a given {@link Connection}.
+     * @param updateListener Listener notified about the update.
+     * @return A Function performing the update and returning an {@link Integer} value.
+     */
+    public static Function<Connection, Integer> databaseUpdate(final Function<Connection, PreparedStatement> psFactory,
+                                                               final UpdateListener updateListener) {
+        return connection -> performUpdateOnConnection(connection, psFactory, updateListener);
     }
 
     private static int performUpdateOnConnection(final Connection connection,
-                                                 final Function<Connection, PreparedStatement> preparedStatementFactory)
+                                                 final Function<Connection, PreparedStatement> preparedStatementFactory,
+                                                 final UpdateListener updateListener)
             throws SQLException {
+        final Instrumentation instrumentation = InstrumentationRegistry.current();
+        final String sql = DatabaseQueryFunctions.sqlOf(preparedStatementFactory);
+        final long start = System.nanoTime();
         try (PreparedStatement preparedStatement = preparedStatementFactory.apply(connection)) {
-            return preparedStatement.executeUpdate();
+            final long prepared = System.nanoTime();
+            instrumentation.statementPrepared(sql, prepared - start);
+            final int updateCount = preparedStatement.executeUpdate();
+            instrumentation.updateExecuted(sql, System.nanoTime() - prepared, updateCount);
+            return updateCount;
+        } catch (SQLException e) {
+            instrumentation.statementFailed(sql, e);
+            throw e;
+        } finally {
+            if (preparedStatementFactory instanceof ParameterizedStatement) {
+                notifyUpdateListener(updateListener, sql);
+            }
+        }
+    }
+
+    /**
+     * Notifies the listener about an executed update now and, if a transaction is running, after its commit.
+     *
+     * @param updateListener Listener to be notified.
+     * @param sql            SQL text of the update statement.
+     */
+    static void notifyUpdateListener(final UpdateListener updateListener, final String sql) {
+        if (updateListener != NO_UPDATE_LISTENER) {
+            updateListener.afterUpdate(sql);
+            DatabaseTransactionFunctions.afterCommit(updateListener, sql);
         }
     }
 
@@ -47,19 +97,124 @@ public final class DatabaseUpdateFunctions {
      */
     public static Function<Connection, int[]> multipleDatabaseUpdates(
             final Collection<Function<Connection, PreparedStatement>> preparedStatementFactories) {
-        return connection -> performUpdatesOnConnection(connection, preparedStatementFactories);
+        return multipleDatabaseUpdates(preparedStatementFactories, NO_UPDATE_LISTENER);
+    }
+
+    /**
+     * Returns a function which performs multiple SQL update on the database and notifies a listener about them like
+     * {@link #databaseUpdate(Function, UpdateListener)}.
+     *
+     * @param preparedStatementFactories List of {@link PreparedStatement} factories creating update statements using a
+     *                                   given {@link Connection}.
+     * @param updateListener             Listener notified about the updates.
+     * @return A Function performing the updates and returning an {@code int[]} array value with the number of the
+     * updates rows per update.
+     */
+    public static Function<Connection, int[]> multipleDatabaseUpdates(
+            final Collection<Function<Connection, PreparedStatement>> preparedStatementFactories,
+            final UpdateListener updateListener) {
+        return connection -> performUpdatesOnConnection(connection, preparedStatementFactories, updateListener);
     }
 
     private static int[] performUpdatesOnConnection(final Connection connection,
-                                                    final Collection<Function<Connection, PreparedStatement>> psFactories)
+                                                    final Collection<Function<Connection, PreparedStatement>> psFactories,
+                                                    final UpdateListener updateListener)
             throws SQLException {
         int[] result = new int[psFactories.size()];
         int currentIndex = 0;
         for (Function<Connection, PreparedStatement> preparedStatementFactory : psFactories) {
-            result[currentIndex++] = performUpdateOnConnection(connection, preparedStatementFactory);
+            result[currentIndex++] = performUpdateOnConnection(connection, preparedStatementFactory, updateListener);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a function which performs multiple SQL updates on the database using JDBC batching. Consecutive
+     * statements sharing the same SQL text are executed as one batch on a single {@link PreparedStatement}, which is
+     * flushed every {@code batchSize} statements. The order of the statements is preserved.
+     *
+     * @param statements List of statements to be executed.
+     * @param batchSize  Maximum number of statements sent to the database with a single
+     *                   {@link PreparedStatement#executeBatch()}.
+     * @return A Function performing the updates and returning an {@code int[]} array value with the number of the
+     * updated rows per statement in the order of the given statements.
+     */
+    public static Function<Connection, int[]> batchedDatabaseUpdates(final Collection<ParameterizedStatement> statements,
+                                                                     final int batchSize) {
+        return batchedDatabaseUpdates(statements, batchSize, NO_UPDATE_LISTENER);
+    }
+
+    /**
+     * Returns a function which performs multiple SQL updates on the database using JDBC batching and notifies a
+     * listener about them like {@link #databaseUpdate(Function, UpdateListener)}.
+     *
+     * @param statements     List of statements to be executed.
+     * @param batchSize      Maximum number of statements sent to the database with a single
+     *                       {@link PreparedStatement#executeBatch()}.
+     * @param updateListener Listener notified about the updates.
+     * @return A Function performing the updates and returning an {@code int[]} array value with the number of the
+     * updated rows per statement in the order of the given statements.
+     */
+    public static Function<Connection, int[]> batchedDatabaseUpdates(final Collection<ParameterizedStatement> statements,
+                                                                     final int batchSize,
+                                                                     final UpdateListener updateListener) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        return connection -> performBatchedUpdatesOnConnection(connection, statements, batchSize, updateListener);
+    }
+
+    private static int[] performBatchedUpdatesOnConnection(final Connection connection,
+                                                           final Collection<ParameterizedStatement> statements,
+                                                           final int batchSize,
+                                                           final UpdateListener updateListener) throws SQLException {
+        final Instrumentation instrumentation = InstrumentationRegistry.current();
+        final int[] result = new int[statements.size()];
+        final Iterator<ParameterizedStatement> iterator = statements.iterator();
+        int currentIndex = 0;
+        ParameterizedStatement next = iterator.hasNext() ? iterator.next() : null;
+        while (next != null) {
+            final String sql = next.getSql();
+            final long start = System.nanoTime();
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                instrumentation.statementPrepared(sql, System.nanoTime() - start);
+                int batchStart = currentIndex;
+                while (next != null && next.getSql().equals(sql)) {
+                    next.bindParameters(preparedStatement);
+                    preparedStatement.addBatch();
+                    currentIndex++;
+                    if (currentIndex - batchStart == batchSize) {
+                        executeBatch(sql, preparedStatement, result, batchStart);
+                        batchStart = currentIndex;
+                    }
+                    next = iterator.hasNext() ? iterator.next() : null;
+                }
+                if (currentIndex > batchStart) {
+                    executeBatch(sql, preparedStatement, result, batchStart);
+                }
+            } catch (SQLException e) {
+                instrumentation.statementFailed(sql, e);
+                throw e;
+            } finally {
+                notifyUpdateListener(updateListener, sql);
+            }
         }
         return result;
     }
 
+    private static void executeBatch(final String sql,
+                                     final PreparedStatement preparedStatement,
+                                     final int[] result,
+                                     final int offset) throws SQLException {
+        final long start = System.nanoTime();
+        final int[] updateCounts = preparedStatement.executeBatch();
+        long updatedRows = 0;
+        for (int updateCount : updateCounts) {
+            updatedRows += Math.max(0, updateCount);
+        }
+        InstrumentationRegistry.current().updateExecuted(sql, System.nanoTime() - start, updatedRows);
+        System.arraycopy(updateCounts, 0, result, offset, updateCounts.length);
+    }
+
 
 }
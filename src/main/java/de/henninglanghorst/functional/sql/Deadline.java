@@ -0,0 +1,79 @@
+package de.henninglanghorst.functional.sql;
+
+import java.time.Duration;
+
+/**
+ * Point in time by which a database operation has to be completed, see
+ * {@link DatabaseOperationFunctions#doInDatabase(de.henninglanghorst.functional.sql.function.Supplier,
+ * de.henninglanghorst.functional.sql.function.Function, Deadline)}. A deadline is measured with
+ * {@link System#nanoTime()} and can be shared by several operations, so that they share one time budget.
+ *
+ * @author Henning Langhorst
+ */
+public final class Deadline {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final long deadlineNanos;
+    private final Duration timeout;
+
+    private Deadline(final long deadlineNanos, final Duration timeout) {
+        this.deadlineNanos = deadlineNanos;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Creates a deadline expiring after the given time from now.
+     *
+     * @param timeout Time budget, must not be negative.
+     * @return The deadline.
+     */
+    public static Deadline after(final Duration timeout) {
+        if (timeout.isNegative()) {
+            throw new IllegalArgumentException("Timeout must not be negative: " + timeout);
+        }
+        return new Deadline(System.nanoTime() + timeout.toNanos(), timeout);
+    }
+
+    /**
+     * Returns the time left until the deadline.
+     *
+     * @return Remaining time in nanoseconds, zero or negative if the deadline has passed.
+     */
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * Returns the time budget the deadline has been created with.
+     *
+     * @return Time budget.
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Returns the remaining time as query timeout for {@link java.sql.Statement#setQueryTimeout(int)}, rounded up to
+     * whole seconds.
+     *
+     * @return Remaining time in seconds, at least 1.
+     * @throws DeadlineExceededException If the deadline has passed.
+     */
+    int queryTimeoutSeconds() throws DeadlineExceededException {
+        final long remainingNanos = remainingNanos();
+        if (remainingNanos <= 0) {
+            throw new DeadlineExceededException(this, null);
+        }
+        return (int) Math.min(Integer.MAX_VALUE, (remainingNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline(timeout=" + timeout + ", remaining=" + Duration.ofNanos(remainingNanos()) + ")";
+    }
+}
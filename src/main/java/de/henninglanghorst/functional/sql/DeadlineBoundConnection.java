@@ -0,0 +1,244 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Function;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies a database function to a connection whose statements are bound to a {@link Deadline} or to an external
+ * cancellation.
+ * <p>
+ * Every statement created through the connection gets the remaining time as query timeout. In addition, a shared
+ * timer cancels all statements of the operation when the deadline passes, so that the deadline also holds for drivers
+ * checking the query timeout only coarsely.
+ *
+ * @author Henning Langhorst
+ */
+final class DeadlineBoundConnection implements InvocationHandler {
+
+    private static final ScheduledThreadPoolExecutor TIMER = createTimer();
+    private static final int MIN_PRUNE_THRESHOLD = 16;
+
+    private final Connection connection;
+    private final Deadline deadline;
+    private final Set<Statement> statements = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int pruneThreshold = MIN_PRUNE_THRESHOLD;
+    private boolean finished;
+    private boolean cancelled;
+    private boolean statementCancelled;
+
+    private DeadlineBoundConnection(final Connection connection, final Deadline deadline) {
+        this.connection = connection;
+        this.deadline = deadline;
+    }
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+        final ScheduledThreadPoolExecutor timer =
+                new ScheduledThreadPoolExecutor(1, AsyncDatabaseExecutor.daemonThreads("database-deadline"));
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    /**
+     * Applies the database function to the connection within the deadline.
+     *
+     * @param connection Connection the function is applied to.
+     * @param dbFunction Function applied to the connection.
+     * @param deadline   Deadline of the function.
+     * @param <R>        Type of the result.
+     * @return Result of the function.
+     * @throws SQLException {@link DeadlineExceededException} if a statement has been cancelled because the deadline
+     *                      passed, or the exception of the function.
+     */
+    static <R> R applyWithin(final Connection connection,
+                             final Function<Connection, R> dbFunction,
+                             final Deadline deadline) throws SQLException {
+        final long remainingNanos = deadline.remainingNanos();
+        if (remainingNanos <= 0) {
+            throw new DeadlineExceededException(deadline, null);
+        }
+        final DeadlineBoundConnection handler = new DeadlineBoundConnection(connection, deadline);
+        final ScheduledFuture<?> timer =
+                TIMER.schedule(handler::cancelStatements, remainingNanos, TimeUnit.NANOSECONDS);
+        try {
+            return dbFunction.apply(handler.proxy());
+        } catch (DeadlineExceededException e) {
+            throw e;
+        } catch (SQLException e) {
+            if (handler.isStatementCancelled() || deadline.isExpired() && isCancellation(e)) {
+                throw new DeadlineExceededException(deadline, e);
+            }
+            throw e;
+        } finally {
+            timer.cancel(false);
+            handler.finish();
+        }
+    }
+
+    /**
+     * Applies the database function to the connection and cancels its statements when the given stage completes.
+     *
+     * @param connection   Connection the function is applied to.
+     * @param dbFunction   Function applied to the connection.
+     * @param cancellation Stage whose completion cancels the function, e.g. after another operation failed.
+     * @param <R>          Type of the result.
+     * @return Result of the function.
+     * @throws SQLException The exception of the function, e.g. of a cancelled statement, or if the function creates a
+     *                      statement after the cancellation.
+     */
+    static <R> R applyCancellable(final Connection connection,
+                                  final Function<Connection, R> dbFunction,
+                                  final CompletionStage<?> cancellation) throws SQLException {
+        final DeadlineBoundConnection handler = new DeadlineBoundConnection(connection, null);
+        cancellation.whenComplete((value, throwable) -> handler.cancelStatements());
+        try {
+            return dbFunction.apply(handler.proxy());
+        } finally {
+            handler.finish();
+        }
+    }
+
+    /**
+     * Binds a statement which has not been created through the given connection, e.g. a statement reused by a
+     * {@link StatementCache}, to the deadline or cancellation of the connection. Does nothing if the connection is not
+     * bound.
+     *
+     * @param connection Connection the statement is used with.
+     * @param statement  Statement to be bound.
+     * @throws SQLException If setting the query timeout fails or the operation has already been cancelled.
+     */
+    static void bindStatement(final Connection connection, final Statement statement) throws SQLException {
+        if (Proxy.isProxyClass(connection.getClass())) {
+            final InvocationHandler handler = Proxy.getInvocationHandler(connection);
+            if (handler instanceof DeadlineBoundConnection) {
+                ((DeadlineBoundConnection) handler).bind(statement);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the driver reports a cancelled statement or an exceeded query timeout, e.g. if the query timeout
+     * elapsed before the timer cancelled the statement.
+     */
+    private static boolean isCancellation(final SQLException e) {
+        final String sqlState = e.getSQLState();
+        return e instanceof SQLTimeoutException || "HY008".equals(sqlState) || "57014".equals(sqlState);
+    }
+
+    private Connection proxy() {
+        return (Connection) Proxy.newProxyInstance(
+                DeadlineBoundConnection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                this);
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "isWrapperFor":
+                return args[0] == Connection.class || (Boolean) delegate(method, args);
+            case "unwrap":
+                return args[0] == Connection.class && !connection.isWrapperFor(Connection.class)
+                        ? connection
+                        : delegate(method, args);
+            case "createStatement":
+            case "prepareStatement":
+            case "prepareCall":
+                return bind((Statement) delegate(method, args));
+            default:
+                return delegate(method, args);
+        }
+    }
+
+    private Object delegate(final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Statement bind(final Statement statement) throws SQLException {
+        if (deadline != null) {
+            try {
+                statement.setQueryTimeout(deadline.queryTimeoutSeconds());
+            } catch (SQLException e) {
+                statement.close();
+                throw e;
+            }
+        }
+        final boolean cancelNow;
+        synchronized (this) {
+            if (statements.size() >= pruneThreshold) {
+                statements.removeIf(DeadlineBoundConnection::isClosed);
+                pruneThreshold = Math.max(MIN_PRUNE_THRESHOLD, statements.size() * 2);
+            }
+            statements.add(statement);
+            cancelNow = cancelled;
+        }
+        if (cancelNow) {
+            statement.close();
+            throw deadline != null
+                    ? new DeadlineExceededException(deadline, null)
+                    : new SQLException("Database operation has been cancelled");
+        }
+        return statement;
+    }
+
+    /**
+     * Cancels all statements of the operation. Invoked when the deadline passes or the cancellation completes;
+     * statements are not cancelled any more once the operation has finished, because the connection may already be
+     * used by another operation.
+     */
+    private synchronized void cancelStatements() {
+        if (finished) {
+            return;
+        }
+        cancelled = true;
+        for (Statement statement : statements) {
+            try {
+                if (!statement.isClosed()) {
+                    statement.cancel();
+                    statementCancelled = true;
+                }
+            } catch (SQLException e) {
+                // statement completes or fails anyway
+            }
+        }
+    }
+
+    private static boolean isClosed(final Statement statement) {
+        try {
+            return statement.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private synchronized boolean isStatementCancelled() {
+        return statementCancelled;
+    }
+
+    private synchronized void finish() {
+        finished = true;
+        statements.clear();
+    }
+}
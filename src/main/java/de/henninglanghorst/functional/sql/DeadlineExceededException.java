@@ -0,0 +1,28 @@
+package de.henninglanghorst.functional.sql;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+
+/**
+ * Thrown if a database operation has not been completed by its {@link Deadline}. The running statement has been
+ * cancelled, the cause is the exception the driver reported for the cancelled statement, if any.
+ *
+ * @author Henning Langhorst
+ */
+public class DeadlineExceededException extends SQLTimeoutException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates an exception for an exceeded deadline.
+     *
+     * @param deadline Deadline which has passed.
+     * @param cause    Exception of the cancelled statement, may be {@code null}.
+     */
+    public DeadlineExceededException(final Deadline deadline, final SQLException cause) {
+        super("Deadline exceeded after " + deadline.getTimeout(),
+                cause == null ? null : cause.getSQLState(),
+                cause == null ? 0 : cause.getErrorCode(),
+                cause);
+    }
+}
@@ -0,0 +1,32 @@
+package de.henninglanghorst.functional.sql;
+
+import java.time.Duration;
+
+/**
+ * Aggregate statistics of a row-by-row extraction from a {@link java.sql.ResultSet}.
+ *
+ * @author Henning Langhorst
+ */
+public final class ExtractionStatistics {
+
+    private final long rowCount;
+    private final long elapsedNanos;
+
+    public ExtractionStatistics(final long rowCount, final long elapsedNanos) {
+        this.rowCount = rowCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public Duration getElapsed() {
+        return Duration.ofNanos(elapsedNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "ExtractionStatistics(rowCount=" + rowCount + ", elapsed=" + getElapsed() + ")";
+    }
+}
@@ -0,0 +1,272 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Function;
+import de.henninglanghorst.functional.sql.function.Supplier;
+import de.henninglanghorst.functional.util.Either;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.henninglanghorst.functional.sql.DatabaseOperationFunctions.doInDatabase;
+import static de.henninglanghorst.functional.sql.DatabaseTransactionFunctions.withinSharedTransaction;
+
+/**
+ * Runs small independent updates submitted by many threads in shared transactions (group commit), so that many
+ * updates share the cost of one commit.
+ * <p>
+ * A single writer thread collects the submitted update functions until the group contains {@code maxGroupSize}
+ * functions or {@code maxWait} has passed since the first one was taken, and applies all of them on one connection
+ * within one transaction. If the shared transaction fails, it is rolled back and every function of the group is run
+ * again within its own transaction, so only the callers whose update actually fails receive an exception, be it an
+ * {@link SQLException} or a {@link RuntimeException}.
+ * <p>
+ * The functions must be independent of each other and may be applied twice; their results are only visible to their
+ * callers after the commit. They must not be wrapped in
+ * {@link DatabaseTransactionFunctions#withinTransaction(Function)}, whose commit would end the shared transaction;
+ * such a function fails with an {@link SQLException}.
+ *
+ * @author Henning Langhorst
+ */
+public final class GroupCommitExecutor implements AutoCloseable {
+
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private final Supplier<Connection> connectionFactory;
+    private final int maxGroupSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<PendingUpdate<?>> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService writer;
+    private volatile boolean closed;
+
+    private final AtomicLong groupCount = new AtomicLong();
+    private final AtomicLong fallbackCount = new AtomicLong();
+
+    private GroupCommitExecutor(final Builder builder) {
+        this.connectionFactory = builder.connectionFactory;
+        this.maxGroupSize = builder.maxGroupSize;
+        this.maxWaitNanos = builder.maxWait.toNanos();
+        this.writer = Executors.newSingleThreadExecutor(AsyncDatabaseExecutor.daemonThreads("group-commit"));
+        this.writer.execute(this::writeGroups);
+    }
+
+    /**
+     * Creates a builder for a group commit executor.
+     *
+     * @param connectionFactory {@link Supplier} providing the connections for the shared transactions.
+     * @return Builder with default settings.
+     */
+    public static Builder builder(final Supplier<Connection> connectionFactory) {
+        return new Builder(connectionFactory);
+    }
+
+    /**
+     * Submits an update function, e.g. a {@link DatabaseUpdateFunctions#databaseUpdate(Function)}, to be applied
+     * within the next shared transaction. The function must not start a transaction of its own.
+     *
+     * @param dbFunction Update function applied to the connection.
+     * @param <R>        Type of the return value after successful execution.
+     * @return Future completed after the commit with either the return value of type {@link R} or the
+     * {@link SQLException}.
+     */
+    public <R> CompletableFuture<Either<R, SQLException>> submit(final Function<Connection, R> dbFunction) {
+        final PendingUpdate<R> pendingUpdate = new PendingUpdate<>(dbFunction);
+        if (closed) {
+            pendingUpdate.reject();
+            return pendingUpdate.result;
+        }
+        queue.add(pendingUpdate);
+        if (closed && queue.remove(pendingUpdate)) {
+            pendingUpdate.reject();
+        }
+        return pendingUpdate.result;
+    }
+
+    /**
+     * Returns the number of shared transactions run so far.
+     *
+     * @return Number of groups.
+     */
+    public long getGroupCount() {
+        return groupCount.get();
+    }
+
+    /**
+     * Returns the number of groups whose shared transaction failed, so that their functions have been run
+     * individually.
+     *
+     * @return Number of failed groups.
+     */
+    public long getFallbackCount() {
+        return fallbackCount.get();
+    }
+
+    /**
+     * Stops accepting updates. Updates already submitted are still committed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PendingUpdate<?> remaining;
+        while ((remaining = queue.poll()) != null) {
+            remaining.reject();
+        }
+    }
+
+    private void writeGroups() {
+        final List<PendingUpdate<?>> group = new ArrayList<>(maxGroupSize);
+        boolean interrupted = false;
+        while (!interrupted && (!closed || !queue.isEmpty())) {
+            try {
+                final PendingUpdate<?> first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                collectGroup(group);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+            if (!group.isEmpty()) {
+                commitGroup(group);
+                group.clear();
+            }
+        }
+    }
+
+    private void collectGroup(final List<PendingUpdate<?>> group) throws InterruptedException {
+        final long deadline = System.nanoTime() + maxWaitNanos;
+        while (group.size() < maxGroupSize) {
+            queue.drainTo(group, maxGroupSize - group.size());
+            final long remainingNanos = deadline - System.nanoTime();
+            if (group.size() >= maxGroupSize || remainingNanos <= 0) {
+                return;
+            }
+            final PendingUpdate<?> next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            group.add(next);
+        }
+    }
+
+    private void commitGroup(final List<PendingUpdate<?>> group) {
+        groupCount.incrementAndGet();
+        final Either<List<Object>, SQLException> result;
+        try {
+            result = doInDatabase(connectionFactory, withinSharedTransaction(connection -> applyAll(group, connection)));
+        } catch (RuntimeException e) {
+            if (group.size() == 1) {
+                group.get(0).result.completeExceptionally(e);
+            } else {
+                runIndividually(group);
+            }
+            return;
+        }
+        if (result.isLeft()) {
+            final List<Object> values = result.left().get();
+            for (int i = 0; i < group.size(); i++) {
+                group.get(i).succeed(values.get(i));
+            }
+        } else if (group.size() == 1) {
+            group.get(0).fail(result.right().get());
+        } else {
+            runIndividually(group);
+        }
+    }
+
+    private void runIndividually(final List<PendingUpdate<?>> group) {
+        fallbackCount.incrementAndGet();
+        group.forEach(PendingUpdate::runIndividually);
+    }
+
+    private static List<Object> applyAll(final List<PendingUpdate<?>> group,
+                                         final Connection connection) throws SQLException {
+        final List<Object> values = new ArrayList<>(group.size());
+        for (PendingUpdate<?> pendingUpdate : group) {
+            values.add(pendingUpdate.dbFunction.apply(connection));
+        }
+        return values;
+    }
+
+    /**
+     * Submitted update function together with the future of its result.
+     */
+    private final class PendingUpdate<R> {
+
+        private final Function<Connection, R> dbFunction;
+        private final CompletableFuture<Either<R, SQLException>> result = new CompletableFuture<>();
+
+        private PendingUpdate(final Function<Connection, R> dbFunction) {
+            this.dbFunction = dbFunction;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void succeed(final Object value) {
+            result.complete(Either.left((R) value));
+        }
+
+        private void fail(final SQLException e) {
+            result.complete(Either.right(e));
+        }
+
+        private void runIndividually() {
+            try {
+                result.complete(doInDatabase(connectionFactory, withinSharedTransaction(dbFunction)));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        private void reject() {
+            fail(new SQLTransientException("Group commit executor is closed"));
+        }
+    }
+
+    /**
+     * Builder for {@link GroupCommitExecutor}s.
+     */
+    public static final class Builder {
+
+        private final Supplier<Connection> connectionFactory;
+        private int maxGroupSize = 64;
+        private Duration maxWait = Duration.ofMillis(2);
+
+        private Builder(final Supplier<Connection> connectionFactory) {
+            this.connectionFactory = connectionFactory;
+        }
+
+        public Builder maxGroupSize(final int maxGroupSize) {
+            this.maxGroupSize = maxGroupSize;
+            return this;
+        }
+
+        public Builder maxWait(final Duration maxWait) {
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        public GroupCommitExecutor build() {
+            if (maxGroupSize < 1) {
+                throw new IllegalArgumentException("Maximum group size must be positive: " + maxGroupSize);
+            }
+            return new GroupCommitExecutor(this);
+        }
+    }
+}
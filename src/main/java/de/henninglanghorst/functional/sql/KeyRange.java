@@ -0,0 +1,90 @@
+package de.henninglanghorst.functional.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Closed range of numeric keys, e.g. for use in {@code where id between ? and ?}, which can be split into partitions
+ * for {@link DatabaseOperationFunctions#doInDatabasePartitioned(de.henninglanghorst.functional.sql.function.Supplier,
+ * KeyRange, int, java.util.function.Function, java.util.concurrent.ForkJoinPool)}.
+ *
+ * @author Henning Langhorst
+ */
+public final class KeyRange {
+
+    private final long from;
+    private final long to;
+
+    private KeyRange(final long from, final long to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Creates a key range.
+     *
+     * @param from Lowest key of the range.
+     * @param to   Highest key of the range.
+     * @return Range containing all keys from {@code from} to {@code to} including both.
+     */
+    public static KeyRange keyRange(final long from, final long to) {
+        if (from > to) {
+            throw new IllegalArgumentException("Invalid key range " + from + " to " + to);
+        }
+        return new KeyRange(from, to);
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+
+    /**
+     * Splits this range into adjacent ranges of nearly equal size in ascending order.
+     *
+     * @param partitions Maximum number of ranges, less if the range contains fewer keys.
+     * @return Ranges covering this range.
+     */
+    public List<KeyRange> split(final int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Number of partitions must be positive: " + partitions);
+        }
+        final long size = Math.addExact(Math.subtractExact(to, from), 1);
+        final long count = Math.min(partitions, size);
+        if (count == 1) {
+            return Collections.singletonList(this);
+        }
+        final List<KeyRange> ranges = new ArrayList<>((int) count);
+        long start = from;
+        for (long i = 0; i < count; i++) {
+            final long length = size / count + (i < size % count ? 1 : 0);
+            ranges.add(new KeyRange(start, start + length - 1));
+            start += length;
+        }
+        return ranges;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        final KeyRange keyRange = (KeyRange) o;
+        return from == keyRange.from && to == keyRange.to;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(from) + Long.hashCode(to);
+    }
+
+    @Override
+    public String toString() {
+        return "KeyRange(" + from + ".." + to + ")";
+    }
+}
@@ -0,0 +1,110 @@
+package de.henninglanghorst.functional.sql;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static de.henninglanghorst.functional.sql.DatabaseStatementFunctions.placeholders;
+
+/**
+ * Creates multi-row {@code INSERT} or {@code MERGE} statements, which insert several rows with a single statement,
+ * e.g. {@code insert into Person (id, name) values (?, ?), (?, ?), (?, ?)}. Created by
+ * {@link DatabaseStatementFunctions#multiRowInsert(String, RowBinder, String...)} and
+ * {@link DatabaseStatementFunctions#multiRowMerge(String, String[], RowBinder, String...)}.
+ * <p>
+ * The rows are split into chunks so that no statement has more than the maximum number of parameters. The SQL text
+ * is generated once per number of rows in a chunk and reused, so all full chunks share the same SQL text and can be
+ * executed as one JDBC batch by {@link DatabaseUpdateFunctions#batchedDatabaseUpdates(Collection, int)}. Instances are
+ * immutable and meant to be kept in constants.
+ *
+ * @param <T> Type of the row objects.
+ * @author Henning Langhorst
+ */
+public final class MultiRowStatements<T> {
+
+    private static final int DEFAULT_MAX_PARAMETERS = 2000;
+
+    private final String sqlPrefix;
+    private final String rowPlaceholders;
+    private final int columnCount;
+    private final RowBinder<T> rowBinder;
+    private final int maxParameters;
+    private final Map<Integer, String> sqlByRowCount;
+
+    MultiRowStatements(final String sqlPrefix, final int columnCount, final RowBinder<T> rowBinder) {
+        if (columnCount < 1) {
+            throw new IllegalArgumentException("At least one column required");
+        }
+        this.sqlPrefix = sqlPrefix;
+        this.rowPlaceholders = "(" + placeholders(columnCount) + ")";
+        this.columnCount = columnCount;
+        this.rowBinder = rowBinder;
+        this.maxParameters = DEFAULT_MAX_PARAMETERS;
+        this.sqlByRowCount = new ConcurrentHashMap<>();
+    }
+
+    private MultiRowStatements(final MultiRowStatements<T> statements, final int maxParameters) {
+        this.sqlPrefix = statements.sqlPrefix;
+        this.rowPlaceholders = statements.rowPlaceholders;
+        this.columnCount = statements.columnCount;
+        this.rowBinder = statements.rowBinder;
+        this.maxParameters = maxParameters;
+        this.sqlByRowCount = statements.sqlByRowCount;
+    }
+
+    /**
+     * Returns statements with a different maximum number of parameters per statement, e.g. 2100 for SQL Server or
+     * 32767 for PostgreSQL. The default is 2000.
+     *
+     * @param maxParameters Maximum number of parameters per statement.
+     * @return Statements using the given maximum number of parameters.
+     */
+    public MultiRowStatements<T> maxParameters(final int maxParameters) {
+        if (maxParameters < columnCount) {
+            throw new IllegalArgumentException(
+                    "Maximum parameters " + maxParameters + " less than the number of columns " + columnCount);
+        }
+        return new MultiRowStatements<>(this, maxParameters);
+    }
+
+    /**
+     * Creates the statements inserting or merging the given rows.
+     *
+     * @param rows Rows to be written.
+     * @return Statements, usable as {@link de.henninglanghorst.functional.sql.function.Function} creating a
+     * {@link java.sql.PreparedStatement} from a {@link Connection}.
+     */
+    public List<ParameterizedStatement> statements(final Collection<? extends T> rows) {
+        final List<T> rowList = new ArrayList<>(rows);
+        final int rowsPerChunk = maxParameters / columnCount;
+        final List<ParameterizedStatement> statements = new ArrayList<>(rowList.size() / rowsPerChunk + 1);
+        for (int chunkStart = 0; chunkStart < rowList.size(); chunkStart += rowsPerChunk) {
+            final List<T> chunk = rowList.subList(chunkStart, Math.min(rowList.size(), chunkStart + rowsPerChunk));
+            statements.add(new ParameterizedStatement(sql(chunk.size()), parameters -> {
+                for (T row : chunk) {
+                    rowBinder.bind(row, parameters);
+                }
+            }));
+        }
+        return statements;
+    }
+
+    private String sql(final int rowCount) {
+        return sqlByRowCount.computeIfAbsent(rowCount, this::generateSql);
+    }
+
+    private String generateSql(final int rowCount) {
+        final StringBuilder sql = new StringBuilder(
+                sqlPrefix.length() + rowCount * (rowPlaceholders.length() + 2)).append(sqlPrefix);
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(rowPlaceholders);
+        }
+        return sql.toString();
+    }
+}
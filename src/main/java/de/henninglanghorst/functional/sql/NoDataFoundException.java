@@ -0,0 +1,28 @@
+package de.henninglanghorst.functional.sql;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown if a query expected to return exactly one row returns no row. A missing row is an expected outcome of many
+ * lookups, so the exception does not record a stack trace.
+ *
+ * @author Henning Langhorst
+ */
+public class NoDataFoundException extends SQLException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * SQL state of the exception, which is the standard SQL state for "no data".
+     */
+    public static final String SQL_STATE = "02000";
+
+    public NoDataFoundException() {
+        super("No data found", SQL_STATE);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
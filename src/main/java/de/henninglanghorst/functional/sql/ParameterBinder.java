@@ -0,0 +1,22 @@
+package de.henninglanghorst.functional.sql;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Sets the parameters of a {@link PreparedStatement} using the typed setters of {@link StatementParameters}, which
+ * avoids boxing primitive values into an {@code Object[]}.
+ *
+ * @author Henning Langhorst
+ */
+@FunctionalInterface
+public interface ParameterBinder {
+
+    /**
+     * Sets the parameters in the order of their placeholders.
+     *
+     * @param parameters Parameters of the statement.
+     * @throws SQLException If setting a parameter fails.
+     */
+    void bind(StatementParameters parameters) throws SQLException;
+}
@@ -0,0 +1,107 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Function;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Function creating a {@link PreparedStatement} from a {@link Connection} which keeps its SQL text and parameters
+ * accessible, so that statements sharing the same SQL text can be recognized (e.g. for JDBC batching).
+ *
+ * @author Henning Langhorst
+ */
+public final class ParameterizedStatement implements Function<Connection, PreparedStatement> {
+
+    private static final Object[] NO_PARAMETERS = new Object[0];
+
+    private final String sql;
+    private final Object[] parameters;
+    private final ParameterBinder binder;
+
+    /**
+     * Creates a statement with the given SQL text and parameters.
+     *
+     * @param sql        SQL statement to be used in {@link Connection#prepareStatement(String)}.
+     * @param parameters Parameters to be set on the {@link PreparedStatement}.
+     */
+    public ParameterizedStatement(final String sql, final Object... parameters) {
+        this.sql = sql;
+        this.parameters = parameters == null || parameters.length == 0 ? NO_PARAMETERS : parameters.clone();
+        this.binder = null;
+    }
+
+    /**
+     * Creates a statement with the given SQL text whose parameters are set by a typed binder.
+     *
+     * @param sql    SQL statement to be used in {@link Connection#prepareStatement(String)}.
+     * @param binder Binder setting the parameters on the {@link PreparedStatement}.
+     */
+    public ParameterizedStatement(final String sql, final ParameterBinder binder) {
+        this.sql = sql;
+        this.parameters = NO_PARAMETERS;
+        this.binder = binder;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Returns the parameter values of this statement. For a statement with a {@link ParameterBinder} the values are
+     * recorded by running the binder.
+     *
+     * @return Parameter values in placeholder order.
+     * @throws UncheckedSQLException If the binder fails.
+     */
+    public Object[] getParameters() {
+        if (binder == null) {
+            return parameters.clone();
+        }
+        try {
+            return StatementParameters.record(binder);
+        } catch (SQLException e) {
+            throw new UncheckedSQLException(e);
+        }
+    }
+
+    /**
+     * Prepares the statement on the given connection and sets its parameters.
+     *
+     * @param connection Connection used for preparing the statement.
+     * @return The prepared statement with all parameters set.
+     * @throws SQLException If preparing the statement or setting a parameter fails.
+     */
+    @Override
+    public PreparedStatement apply(final Connection connection) throws SQLException {
+        final PreparedStatement preparedStatement = connection.prepareStatement(sql);
+        bindParameters(preparedStatement);
+        return preparedStatement;
+    }
+
+    /**
+     * Sets the parameters of this statement on an already prepared statement with the same SQL text.
+     *
+     * @param preparedStatement Statement on which the parameters are set.
+     * @throws SQLException If setting a parameter fails.
+     */
+    public void bindParameters(final PreparedStatement preparedStatement) throws SQLException {
+        if (binder != null) {
+            StatementParameters.bind(preparedStatement, binder);
+            return;
+        }
+        for (int i = 0; i < parameters.length; i++) {
+            preparedStatement.setObject(i + 1, parameters[i]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (binder != null) {
+            return "ParameterizedStatement(" + sql + ", " + binder + ")";
+        }
+        return "ParameterizedStatement(" + sql + ", " + Arrays.toString(parameters) + ")";
+    }
+}
@@ -0,0 +1,355 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Function;
+import de.henninglanghorst.functional.sql.function.Supplier;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.databaseQuery;
+
+/**
+ * Opt-in cache for the results of query functions, keyed by SQL text and bound parameters.
+ * <p>
+ * The cache is bounded by the number of entries or by an estimated weight per entry and evicts the least recently
+ * used entries first. Entries expire after the configured time to live. Concurrent misses for the same key are
+ * coalesced, so only one of the callers runs the query while the others wait for its result.
+ * <p>
+ * Every cached query declares the tables it reads. The cache is an {@link UpdateListener}: passed to the update
+ * functions of {@link DatabaseUpdateFunctions}, e.g. {@code databaseUpdate(statement, queryCache)}, it removes all
+ * entries reading a table which has been updated, both when the update is executed and when its transaction is
+ * committed. Updates whose table cannot be determined from the SQL text invalidate the whole cache.
+ * <p>
+ * Queries running within {@link DatabaseTransactionFunctions#withinTransaction(Function)} bypass the cache: they may
+ * see uncommitted rows of their own transaction, which must neither be shared with other threads nor stay cached if
+ * the transaction is rolled back.
+ *
+ * @author Henning Langhorst
+ */
+public final class QueryCache implements UpdateListener, AutoCloseable {
+
+    private static final Pattern MODIFIED_TABLE = Pattern.compile(
+            "^\\s*(?:insert\\s+into|update|delete\\s+from|delete|merge\\s+into|truncate\\s+table"
+                    + "|drop\\s+table(?:\\s+if\\s+exists)?|alter\\s+table|create\\s+table(?:\\s+if\\s+not\\s+exists)?)"
+                    + "\\s+([\\w.\"`]+)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern READ_ONLY_STATEMENT = Pattern.compile("^\\s*(?:select|with)\\b", Pattern.CASE_INSENSITIVE);
+
+    private final long maximumWeight;
+    private final ToLongFunction<Object> weigher;
+    private final long timeToLiveNanos;
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Key, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+    private long totalWeight;
+    private long invalidationCount;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private QueryCache(final Builder builder) {
+        this.maximumWeight = builder.maximumWeight;
+        this.weigher = builder.weigher;
+        this.timeToLiveNanos = builder.timeToLive.toNanos();
+    }
+
+    /**
+     * Creates a builder for a query cache.
+     *
+     * @return Builder with default settings.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns a query function like {@link DatabaseQueryFunctions#databaseQuery(Function, Function)} whose result is
+     * cached.
+     *
+     * @param statement           Select statement with its parameters, which are part of the cache key.
+     * @param resultSetExtraction Function extracting data from {@link ResultSet}. Its result is shared between
+     *                            callers and should therefore be immutable.
+     * @param tables              Tables read by the query, used for invalidation.
+     * @param <R>                 Type to which the {@link ResultSet} is mapped.
+     * @return A Function returning the cached or queried result.
+     */
+    public <R> Function<Connection, R> cachedQuery(final ParameterizedStatement statement,
+                                                   final Function<ResultSet, R> resultSetExtraction,
+                                                   final String... tables) {
+        final Key key = new Key(statement.getSql(), statement.getParameters());
+        final Set<String> normalizedTables = new HashSet<>();
+        for (String table : tables) {
+            normalizedTables.add(normalizeTableName(table));
+        }
+        final Function<Connection, R> query = databaseQuery(statement, resultSetExtraction);
+        return connection -> DatabaseTransactionFunctions.isWithinTransaction()
+                ? query.apply(connection)
+                : getOrLoad(key, normalizedTables, () -> query.apply(connection));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> R getOrLoad(final Key key, final Set<String> tables, final Supplier<R> loader) throws SQLException {
+        final long invalidationCountBeforeLoad;
+        synchronized (lock) {
+            final Entry entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.createdNanos < timeToLiveNanos) {
+                    hitCount.incrementAndGet();
+                    return (R) entry.value;
+                }
+                removeEntry(key);
+            }
+            invalidationCountBeforeLoad = invalidationCount;
+        }
+        missCount.incrementAndGet();
+        final CompletableFuture<Object> ownLoad = new CompletableFuture<>();
+        final CompletableFuture<Object> runningLoad = loading.putIfAbsent(key, ownLoad);
+        if (runningLoad != null) {
+            return (R) awaitLoad(runningLoad);
+        }
+        try {
+            final R value = loader.get();
+            store(key, tables, value, invalidationCountBeforeLoad);
+            ownLoad.complete(value);
+            return value;
+        } catch (SQLException | RuntimeException e) {
+            ownLoad.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, ownLoad);
+        }
+    }
+
+    private static Object awaitLoad(final CompletableFuture<Object> runningLoad) throws SQLException {
+        try {
+            return runningLoad.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for cached query", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Cached query failed", e.getCause());
+        }
+    }
+
+    private void store(final Key key, final Set<String> tables, final Object value, final long expectedInvalidationCount) {
+        final long weight = weigher.applyAsLong(value);
+        synchronized (lock) {
+            if (invalidationCount != expectedInvalidationCount || weight > maximumWeight) {
+                return;
+            }
+            removeEntry(key);
+            entries.put(key, new Entry(value, tables, weight));
+            totalWeight += weight;
+            final Iterator<Map.Entry<Key, Entry>> leastRecentlyUsed = entries.entrySet().iterator();
+            while (totalWeight > maximumWeight && leastRecentlyUsed.hasNext()) {
+                totalWeight -= leastRecentlyUsed.next().getValue().weight;
+                leastRecentlyUsed.remove();
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    private void removeEntry(final Key key) {
+        final Entry removed = entries.remove(key);
+        if (removed != null) {
+            totalWeight -= removed.weight;
+        }
+    }
+
+    /**
+     * Removes all entries of queries reading the given table.
+     *
+     * @param table Name of the table.
+     */
+    public void invalidateTable(final String table) {
+        final String normalizedTable = normalizeTableName(table);
+        synchronized (lock) {
+            invalidationCount++;
+            final Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                final Entry entry = iterator.next();
+                if (entry.tables.contains(normalizedTable)) {
+                    totalWeight -= entry.weight;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void invalidateAll() {
+        synchronized (lock) {
+            invalidationCount++;
+            entries.clear();
+            totalWeight = 0;
+        }
+    }
+
+    /**
+     * Invalidates the entries of the table modified by the given update statement.
+     *
+     * @param sql SQL text of the update statement.
+     */
+    @Override
+    public void afterUpdate(final String sql) {
+        final Matcher matcher = MODIFIED_TABLE.matcher(sql);
+        if (matcher.find()) {
+            invalidateTable(matcher.group(1));
+        } else if (!READ_ONLY_STATEMENT.matcher(sql).find()) {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    @Override
+    public void close() {
+        invalidateAll();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    private static String normalizeTableName(final String table) {
+        final String unquoted = table.replace("\"", "").replace("`", "");
+        return unquoted.substring(unquoted.lastIndexOf('.') + 1).toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Cache key consisting of SQL text and parameters.
+     */
+    private static final class Key {
+
+        private final String sql;
+        private final Object[] parameters;
+        private final int hashCode;
+
+        private Key(final String sql, final Object[] parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.hashCode = 31 * sql.hashCode() + Arrays.deepHashCode(parameters);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+            final Key key = (Key) o;
+            return hashCode == key.hashCode && Objects.equals(sql, key.sql) && Arrays.deepEquals(parameters, key.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Cached query result.
+     */
+    private static final class Entry {
+
+        private final Object value;
+        private final Set<String> tables;
+        private final long weight;
+        private final long createdNanos = System.nanoTime();
+
+        private Entry(final Object value, final Set<String> tables, final long weight) {
+            this.value = value;
+            this.tables = tables;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Builder for {@link QueryCache}s.
+     */
+    public static final class Builder {
+
+        private long maximumWeight = 1000;
+        private ToLongFunction<Object> weigher = value -> 1;
+        private Duration timeToLive = Duration.ofMinutes(5);
+
+        private Builder() {
+        }
+
+        /**
+         * Limits the cache to the given number of entries.
+         *
+         * @param maximumSize Maximum number of entries.
+         * @return This builder.
+         */
+        public Builder maximumSize(final long maximumSize) {
+            this.maximumWeight = maximumSize;
+            this.weigher = value -> 1;
+            return this;
+        }
+
+        /**
+         * Limits the cache to the given total weight of all entries.
+         *
+         * @param maximumWeight Maximum total weight.
+         * @param weigher       Estimates the weight of a cached query result.
+         * @return This builder.
+         */
+        public Builder maximumWeight(final long maximumWeight, final ToLongFunction<Object> weigher) {
+            this.maximumWeight = maximumWeight;
+            this.weigher = weigher;
+            return this;
+        }
+
+        public Builder timeToLive(final Duration timeToLive) {
+            this.timeToLive = timeToLive;
+            return this;
+        }
+
+        public QueryCache build() {
+            if (maximumWeight < 1) {
+                throw new IllegalArgumentException("Maximum weight must be positive: " + maximumWeight);
+            }
+            return new QueryCache(this);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Function;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Database function marked as read-only, see {@link DatabaseQueryFunctions#readOnly(Function)}.
+ *
+ * @param <R> Type of the result.
+ * @author Henning Langhorst
+ */
+final class ReadOnlyFunction<R> implements Function<Connection, R> {
+
+    private final Function<Connection, R> dbFunction;
+
+    ReadOnlyFunction(final Function<Connection, R> dbFunction) {
+        this.dbFunction = dbFunction;
+    }
+
+    @Override
+    public R apply(final Connection connection) throws SQLException {
+        return dbFunction.apply(connection);
+    }
+}
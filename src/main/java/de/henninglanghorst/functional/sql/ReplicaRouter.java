@@ -0,0 +1,198 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Function;
+import de.henninglanghorst.functional.sql.function.Supplier;
+import de.henninglanghorst.functional.util.Either;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs database functions like {@link DatabaseOperationFunctions#doInDatabase(Supplier, Function)}, but splits reads
+ * and writes between a primary database and its replicas.
+ * <p>
+ * Functions marked with {@link DatabaseQueryFunctions#readOnly(Function)} run on a read-only connection of one of the
+ * replicas, chosen by the configured {@link Balancing}. All other functions, e.g. updates or transactions created by
+ * {@link DatabaseUpdateFunctions} and {@link DatabaseTransactionFunctions}, run on the primary database. If no
+ * connection to the chosen replica can be obtained, the read runs on the primary database. The read-only flag of the
+ * connection is restored after the read, so that pooled connections are handed out unchanged.
+ *
+ * @author Henning Langhorst
+ */
+public final class ReplicaRouter {
+
+    /**
+     * Strategy for choosing the replica of a read.
+     */
+    public enum Balancing {
+        /**
+         * Uses the replicas in turn.
+         */
+        ROUND_ROBIN,
+        /**
+         * Uses the replica with the fewest reads in progress.
+         */
+        LEAST_OUTSTANDING
+    }
+
+    private final Supplier<Connection> primary;
+    private final Replica[] replicas;
+    private final Balancing balancing;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final AtomicLong primaryOperationCount = new AtomicLong();
+    private final AtomicLong replicaOperationCount = new AtomicLong();
+
+    private ReplicaRouter(final Builder builder) {
+        this.primary = builder.primary;
+        this.replicas = builder.replicas.stream().map(Replica::new).toArray(Replica[]::new);
+        this.balancing = builder.balancing;
+    }
+
+    /**
+     * Creates a builder for a router.
+     *
+     * @param primary {@link Supplier} providing connections to the primary database.
+     * @return Builder without replicas.
+     */
+    public static Builder builder(final Supplier<Connection> primary) {
+        return new Builder(primary);
+    }
+
+    /**
+     * Applies the function on a connection to a replica if the function is read-only, on a connection to the
+     * primary database otherwise, and closes the connection.
+     *
+     * @param dbFunction Function applied to the connection.
+     * @param <R>        Type of the return value after successful execution.
+     * @return Either the return value of Type {@link R} or the {@link SQLException} in case of an error.
+     */
+    public <R> Either<R, SQLException> doInDatabase(final Function<Connection, R> dbFunction) {
+        if (!(dbFunction instanceof ReadOnlyFunction) || replicas.length == 0) {
+            primaryOperationCount.incrementAndGet();
+            return DatabaseOperationFunctions.doInDatabase(primary, dbFunction);
+        }
+        final Replica replica = selectReplica();
+        replica.outstanding.incrementAndGet();
+        try {
+            replicaOperationCount.incrementAndGet();
+            return DatabaseOperationFunctions.doInDatabase(
+                    replica::connection,
+                    connection -> performReadOnly(connection, dbFunction));
+        } finally {
+            replica.outstanding.decrementAndGet();
+        }
+    }
+
+    private static <R> R performReadOnly(final Connection connection,
+                                         final Function<Connection, R> dbFunction) throws SQLException {
+        final boolean readOnlyInitially = connection.isReadOnly();
+        if (!readOnlyInitially) {
+            connection.setReadOnly(true);
+        }
+        final R result;
+        try {
+            result = dbFunction.apply(connection);
+        } catch (SQLException | RuntimeException e) {
+            if (!readOnlyInitially) {
+                restoreReadWriteAfterFailure(connection, e);
+            }
+            throw e;
+        }
+        if (!readOnlyInitially) {
+            connection.setReadOnly(false);
+        }
+        return result;
+    }
+
+    private static void restoreReadWriteAfterFailure(final Connection connection, final Exception failure) {
+        try {
+            connection.setReadOnly(false);
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private Replica selectReplica() {
+        final int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.length);
+        if (balancing == Balancing.ROUND_ROBIN) {
+            return replicas[start];
+        }
+        Replica selected = replicas[start];
+        for (int i = 1; i < replicas.length && selected.outstanding.get() > 0; i++) {
+            final Replica candidate = replicas[(start + i) % replicas.length];
+            if (candidate.outstanding.get() < selected.outstanding.get()) {
+                selected = candidate;
+            }
+        }
+        return selected;
+    }
+
+    public long getPrimaryOperationCount() {
+        return primaryOperationCount.get();
+    }
+
+    public long getReplicaOperationCount() {
+        return replicaOperationCount.get();
+    }
+
+    /**
+     * Replica together with the number of reads in progress.
+     */
+    private final class Replica {
+
+        private final Supplier<Connection> connectionFactory;
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private Replica(final Supplier<Connection> connectionFactory) {
+            this.connectionFactory = connectionFactory;
+        }
+
+        private Connection connection() throws SQLException {
+            try {
+                return connectionFactory.get();
+            } catch (SQLException e) {
+                replicaOperationCount.decrementAndGet();
+                primaryOperationCount.incrementAndGet();
+                return primary.get();
+            }
+        }
+    }
+
+    /**
+     * Builder for {@link ReplicaRouter}s.
+     */
+    public static final class Builder {
+
+        private final Supplier<Connection> primary;
+        private final List<Supplier<Connection>> replicas = new ArrayList<>();
+        private Balancing balancing = Balancing.ROUND_ROBIN;
+
+        private Builder(final Supplier<Connection> primary) {
+            this.primary = primary;
+        }
+
+        /**
+         * Adds a replica.
+         *
+         * @param replica {@link Supplier} providing connections to the replica.
+         * @return This builder.
+         */
+        public Builder replica(final Supplier<Connection> replica) {
+            this.replicas.add(replica);
+            return this;
+        }
+
+        public Builder balancing(final Balancing balancing) {
+            this.balancing = balancing;
+            return this;
+        }
+
+        public ReplicaRouter build() {
+            return new ReplicaRouter(this);
+        }
+    }
+}
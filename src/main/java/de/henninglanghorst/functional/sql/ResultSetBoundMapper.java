@@ -0,0 +1,42 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Function;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Row mapper which can resolve its column binding once for a whole {@link ResultSet}, see
+ * {@link RowMappers#rowMapper(Class)}. The extraction functions of {@link DatabaseQueryFunctions} bind such mappers
+ * before reading the first row.
+ *
+ * @param <R> Type to which the rows are mapped.
+ * @author Henning Langhorst
+ */
+interface ResultSetBoundMapper<R> extends Function<ResultSet, R> {
+
+    /**
+     * Resolves the column binding for the given {@link ResultSet}.
+     *
+     * @param resultSet Result set whose rows are mapped.
+     * @return Mapper for the rows of this result set only.
+     * @throws SQLException If the columns cannot be bound.
+     */
+    Function<ResultSet, R> bindTo(ResultSet resultSet) throws SQLException;
+
+    /**
+     * Binds a mapper to a {@link ResultSet} if it supports binding.
+     *
+     * @param resultSetMapper Mapper to be bound.
+     * @param resultSet       Result set whose rows are mapped.
+     * @param <R>             Type to which the rows are mapped.
+     * @return The bound mapper, or the given mapper if it does not support binding.
+     * @throws SQLException If the columns cannot be bound.
+     */
+    static <R> Function<ResultSet, R> bind(final Function<ResultSet, R> resultSetMapper,
+                                           final ResultSet resultSet) throws SQLException {
+        return resultSetMapper instanceof ResultSetBoundMapper
+                ? ((ResultSetBoundMapper<R>) resultSetMapper).bindTo(resultSet)
+                : resultSetMapper;
+    }
+}
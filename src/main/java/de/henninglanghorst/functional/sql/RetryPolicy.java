@@ -0,0 +1,209 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Function;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Policy for retrying transactions which failed because of a conflict with concurrent transactions, see
+ * {@link DatabaseTransactionFunctions#withinTransaction(Function, RetryPolicy)}.
+ * <p>
+ * Between two attempts the policy waits for a random time between zero and an exponentially growing backoff, so that
+ * conflicting transactions do not retry at the same time. A policy counts its retries and can therefore be shared by
+ * all transactions of one kind.
+ *
+ * @author Henning Langhorst
+ */
+public final class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final Predicate<SQLException> retryable;
+
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong recoveredCount = new AtomicLong();
+    private final AtomicLong exhaustedCount = new AtomicLong();
+
+    private RetryPolicy(final Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoffNanos = builder.initialBackoff.toNanos();
+        this.maxBackoffNanos = builder.maxBackoff.toNanos();
+        this.retryable = builder.retryable;
+    }
+
+    /**
+     * Creates a builder for a retry policy.
+     *
+     * @return Builder with default settings.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Checks whether an exception is caused by a conflict with concurrent transactions, i.e. a deadlock, a lock
+     * timeout or a serialization failure, so that the transaction may succeed when it is retried.
+     * <p>
+     * Only the SQL states 40001 (serialization failure) and 40P01 (deadlock) are taken as conflicts, not the whole
+     * transaction rollback class 40, which also contains e.g. 40002 (integrity constraint violation) and 40003
+     * (statement completion unknown). Vendor error codes are only taken into account together with the SQL state the
+     * vendor reports them with, because the same code means different errors for different vendors.
+     *
+     * @param e Exception thrown by a transaction.
+     * @return {@code true} if the transaction may be retried.
+     */
+    public static boolean isTransactionConflict(final SQLException e) {
+        for (SQLException current = e; current != null; current = current.getNextException()) {
+            if (isTransactionConflict(current.getSQLState(), current.getErrorCode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTransactionConflict(final String sqlState, final int errorCode) {
+        if ("40001".equals(sqlState) || "40P01".equals(sqlState)) {
+            // serialization failure or deadlock, e.g. MySQL 1213, SQL Server 1205, PostgreSQL, H2
+            return true;
+        }
+        switch (errorCode) {
+            case 60:    // Oracle deadlock
+                return "61000".equals(sqlState);
+            case 8177:  // Oracle serialization failure
+                return "72000".equals(sqlState);
+            case 1205:  // MySQL lock wait timeout
+                return "HY000".equals(sqlState);
+            case 50200: // H2 lock timeout
+                return "HYT00".equals(sqlState);
+            default:
+                return false;
+        }
+    }
+
+    boolean shouldRetry(final SQLException e, final int attempt) {
+        if (!retryable.test(e)) {
+            return false;
+        }
+        if (attempt >= maxAttempts) {
+            exhaustedCount.incrementAndGet();
+            return false;
+        }
+        retryCount.incrementAndGet();
+        return true;
+    }
+
+    void recovered() {
+        recoveredCount.incrementAndGet();
+    }
+
+    long backoffNanos(final int attempt) {
+        final int shift = attempt - 1;
+        final long backoff = shift >= Long.numberOfLeadingZeros(initialBackoffNanos) - 1
+                ? maxBackoffNanos
+                : Math.min(maxBackoffNanos, initialBackoffNanos << shift);
+        return backoff <= 0 ? 0 : ThreadLocalRandom.current().nextLong(backoff + 1);
+    }
+
+    /**
+     * Returns the number of retried attempts.
+     *
+     * @return Number of retries.
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * Returns the number of transactions which succeeded after at least one retry.
+     *
+     * @return Number of recovered transactions.
+     */
+    public long getRecoveredCount() {
+        return recoveredCount.get();
+    }
+
+    /**
+     * Returns the number of transactions which failed with a retryable exception after the maximum number of attempts.
+     *
+     * @return Number of transactions without further attempts.
+     */
+    public long getExhaustedCount() {
+        return exhaustedCount.get();
+    }
+
+    /**
+     * Builder for {@link RetryPolicy}s.
+     */
+    public static final class Builder {
+
+        /**
+         * Largest backoff whose nanoseconds still fit into a {@code long} after adding one for the random backoff.
+         */
+        private static final Duration MAX_BACKOFF = Duration.ofNanos(Long.MAX_VALUE - 1);
+
+        private int maxAttempts = 5;
+        private Duration initialBackoff = Duration.ofMillis(10);
+        private Duration maxBackoff = Duration.ofSeconds(1);
+        private Predicate<SQLException> retryable = RetryPolicy::isTransactionConflict;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the maximum number of attempts including the first one.
+         *
+         * @param maxAttempts Maximum number of attempts.
+         * @return This builder.
+         */
+        public Builder maxAttempts(final int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Sets the maximum backoff before the first retry, which doubles with every further retry.
+         *
+         * @param initialBackoff Maximum backoff before the first retry.
+         * @return This builder.
+         */
+        public Builder initialBackoff(final Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+            return this;
+        }
+
+        public Builder maxBackoff(final Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        /**
+         * Sets the classification of retryable exceptions. The default is {@link #isTransactionConflict(SQLException)}.
+         *
+         * @param retryable Predicate returning {@code true} for exceptions after which the transaction is retried.
+         * @return This builder.
+         */
+        public Builder retryable(final Predicate<SQLException> retryable) {
+            this.retryable = retryable;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("Maximum attempts must be positive: " + maxAttempts);
+            }
+            if (initialBackoff.isNegative() || initialBackoff.compareTo(maxBackoff) > 0) {
+                throw new IllegalArgumentException(
+                        "Initial backoff must be between zero and the maximum backoff: " + initialBackoff);
+            }
+            if (maxBackoff.compareTo(MAX_BACKOFF) > 0) {
+                throw new IllegalArgumentException("Maximum backoff too large: " + maxBackoff);
+            }
+            return new RetryPolicy(this);
+        }
+    }
+}
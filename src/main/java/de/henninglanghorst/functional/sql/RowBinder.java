@@ -0,0 +1,24 @@
+package de.henninglanghorst.functional.sql;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Sets the parameters of a {@link PreparedStatement} from the values of a row object, e.g. for
+ * {@link BulkLoader}s.
+ *
+ * @param <T> Type of the row objects.
+ * @author Henning Langhorst
+ */
+@FunctionalInterface
+public interface RowBinder<T> {
+
+    /**
+     * Sets the parameters for the given row in the order of their placeholders.
+     *
+     * @param row        Row object providing the values.
+     * @param parameters Parameters of the statement.
+     * @throws SQLException If setting a parameter fails.
+     */
+    void bind(T row, StatementParameters parameters) throws SQLException;
+}
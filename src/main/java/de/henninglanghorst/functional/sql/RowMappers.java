@@ -0,0 +1,354 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Function;
+
+import java.beans.ConstructorProperties;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates row mappers which map the rows of a {@link ResultSet} to instances of a given class without looking up
+ * columns by label for every row.
+ * <p>
+ * The extraction functions of {@link DatabaseQueryFunctions} resolve the column labels of a {@link ResultSet} to
+ * column indexes once before reading its first row, using the {@link ResultSetMetaData}. The resulting binding of
+ * columns to constructor parameters or setters is compiled to {@link MethodHandle}s once per class and column layout
+ * and cached, so each row only costs the typed {@code getXxx(int)} calls and one constructor invocation. Applied
+ * directly to a {@link ResultSet}, a mapper looks up the binding for every row.
+ * <p>
+ * The properties of the target class are bound in this order of preference:
+ * <ol>
+ * <li>a constructor annotated with {@link ConstructorProperties} (generated by Lombok),</li>
+ * <li>a constructor whose parameter names are available (compiled with {@code -parameters}),</li>
+ * <li>the no-argument constructor and setters for all properties with a matching column.</li>
+ * </ol>
+ * Constructors are never bound by parameter order alone, because parameters of the same type could be swapped
+ * silently.
+ * Column labels are matched case-insensitively against the property names.
+ *
+ * @author Henning Langhorst
+ */
+public final class RowMappers {
+
+    private static final Map<Layout, Binding> BINDINGS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ColumnReader> COLUMN_READERS = columnReaders();
+
+    private RowMappers() {
+    }
+
+    /**
+     * Creates a row mapper for the given class, usable e.g. with
+     * {@link DatabaseQueryFunctions#multipleRowExtraction(Function)}. The mapper can be shared between threads.
+     *
+     * @param type Class to which the rows are mapped.
+     * @param <R>  Type to which the rows are mapped.
+     * @return Function mapping the current row of a {@link ResultSet} to an instance of {@link R}.
+     * @throws IllegalArgumentException If the class has no constructor suitable for binding.
+     */
+    public static <R> Function<ResultSet, R> rowMapper(final Class<R> type) {
+        return new IndexResolvingRowMapper<>(type, bindingStrategy(type));
+    }
+
+    private static BindingStrategy bindingStrategy(final Class<?> type) {
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            final ConstructorProperties properties = constructor.getAnnotation(ConstructorProperties.class);
+            if (properties != null && properties.value().length == constructor.getParameterCount()) {
+                return new ConstructorStrategy(constructor, properties.value());
+            }
+        }
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            final Parameter[] parameters = constructor.getParameters();
+            if (parameters.length > 0 && parameters[0].isNamePresent()) {
+                return new ConstructorStrategy(constructor,
+                        Arrays.stream(parameters).map(Parameter::getName).toArray(String[]::new));
+            }
+        }
+        try {
+            return new SetterStrategy(type.getDeclaredConstructor());
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("No constructor of " + type.getName() + " can be bound to columns; "
+                    + "annotate it with @ConstructorProperties, compile with -parameters or add a no-argument "
+                    + "constructor and setters", e);
+        }
+    }
+
+    /**
+     * Row mapper resolving its binding once per {@link ResultSet} when bound, and for every row otherwise.
+     */
+    private static final class IndexResolvingRowMapper<R> implements ResultSetBoundMapper<R> {
+
+        private final Class<R> type;
+        private final BindingStrategy strategy;
+
+        private IndexResolvingRowMapper(final Class<R> type, final BindingStrategy strategy) {
+            this.type = type;
+            this.strategy = strategy;
+        }
+
+        @Override
+        public R apply(final ResultSet resultSet) throws SQLException {
+            return type.cast(resolveBinding(resultSet).map(resultSet));
+        }
+
+        @Override
+        public Function<ResultSet, R> bindTo(final ResultSet resultSet) throws SQLException {
+            final Binding binding = resolveBinding(resultSet);
+            return rs -> type.cast(binding.map(rs));
+        }
+
+        private Binding resolveBinding(final ResultSet resultSet) throws SQLException {
+            final ResultSetMetaData metaData = resultSet.getMetaData();
+            final String[] labels = new String[metaData.getColumnCount()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = metaData.getColumnLabel(i + 1).toUpperCase(Locale.ROOT);
+            }
+            final Layout layout = new Layout(type, labels);
+            final Binding binding = BINDINGS.get(layout);
+            if (binding != null) {
+                return binding;
+            }
+            final Binding compiledBinding = strategy.compile(labels);
+            BINDINGS.putIfAbsent(layout, compiledBinding);
+            return compiledBinding;
+        }
+    }
+
+    /**
+     * Strategy compiling a {@link Binding} for a column layout.
+     */
+    private interface BindingStrategy {
+        Binding compile(String[] columnLabels) throws SQLException;
+    }
+
+    /**
+     * Maps the current row of a {@link ResultSet} to an object.
+     */
+    private interface Binding {
+        Object map(ResultSet resultSet) throws SQLException;
+    }
+
+    /**
+     * Reads a column value of a specific Java type.
+     */
+    @FunctionalInterface
+    private interface ColumnReader {
+        Object read(ResultSet resultSet, int columnIndex) throws SQLException;
+    }
+
+    /**
+     * Binds columns to the parameters of a constructor.
+     */
+    private static final class ConstructorStrategy implements BindingStrategy {
+
+        private final Constructor<?> constructor;
+        private final String[] propertyNames;
+
+        private ConstructorStrategy(final Constructor<?> constructor, final String[] propertyNames) {
+            this.constructor = constructor;
+            this.propertyNames = propertyNames;
+        }
+
+        @Override
+        public Binding compile(final String[] columnLabels) throws SQLException {
+            final Map<String, Integer> columnIndexes = columnIndexes(columnLabels);
+            final Class<?>[] parameterTypes = constructor.getParameterTypes();
+            final int[] indexes = new int[propertyNames.length];
+            final ColumnReader[] readers = new ColumnReader[propertyNames.length];
+            for (int i = 0; i < propertyNames.length; i++) {
+                final Integer columnIndex = columnIndexes.get(propertyNames[i].toUpperCase(Locale.ROOT));
+                if (columnIndex == null) {
+                    throw new SQLException("No column for property '" + propertyNames[i] + "' of "
+                            + constructor.getDeclaringClass().getName() + " in " + Arrays.toString(columnLabels));
+                }
+                indexes[i] = columnIndex;
+                readers[i] = columnReader(parameterTypes[i]);
+            }
+            final MethodHandle constructorHandle = unreflect(constructor)
+                    .asSpreader(Object[].class, indexes.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+            return resultSet -> {
+                final Object[] arguments = new Object[indexes.length];
+                for (int i = 0; i < indexes.length; i++) {
+                    arguments[i] = readers[i].read(resultSet, indexes[i]);
+                }
+                try {
+                    return (Object) constructorHandle.invokeExact(arguments);
+                } catch (Throwable t) {
+                    throw mappingFailure(t);
+                }
+            };
+        }
+    }
+
+    /**
+     * Binds columns to setters after invoking the no-argument constructor.
+     */
+    private static final class SetterStrategy implements BindingStrategy {
+
+        private final Constructor<?> constructor;
+
+        private SetterStrategy(final Constructor<?> constructor) {
+            this.constructor = constructor;
+        }
+
+        @Override
+        public Binding compile(final String[] columnLabels) throws SQLException {
+            final Map<String, Integer> columnIndexes = columnIndexes(columnLabels);
+            final List<Integer> indexes = new ArrayList<>();
+            final List<ColumnReader> readers = new ArrayList<>();
+            final List<MethodHandle> setters = new ArrayList<>();
+            for (Method method : constructor.getDeclaringClass().getMethods()) {
+                if (method.getName().length() > 3 && method.getName().startsWith("set")
+                        && method.getParameterCount() == 1 && !Modifier.isStatic(method.getModifiers())) {
+                    final Integer columnIndex = columnIndexes.get(method.getName().substring(3).toUpperCase(Locale.ROOT));
+                    if (columnIndex != null) {
+                        indexes.add(columnIndex);
+                        readers.add(columnReader(method.getParameterTypes()[0]));
+                        setters.add(unreflect(method)
+                                .asType(MethodType.methodType(void.class, Object.class, Object.class)));
+                    }
+                }
+            }
+            final MethodHandle constructorHandle = unreflect(constructor).asType(MethodType.methodType(Object.class));
+            final int[] columnIndexArray = indexes.stream().mapToInt(Integer::intValue).toArray();
+            final ColumnReader[] readerArray = readers.toArray(new ColumnReader[0]);
+            final MethodHandle[] setterArray = setters.toArray(new MethodHandle[0]);
+            return resultSet -> {
+                try {
+                    final Object instance = (Object) constructorHandle.invokeExact();
+                    for (int i = 0; i < columnIndexArray.length; i++) {
+                        setterArray[i].invokeExact(instance, readerArray[i].read(resultSet, columnIndexArray[i]));
+                    }
+                    return instance;
+                } catch (Throwable t) {
+                    throw mappingFailure(t);
+                }
+            };
+        }
+    }
+
+    private static Map<String, Integer> columnIndexes(final String[] columnLabels) {
+        final Map<String, Integer> columnIndexes = new HashMap<>();
+        for (int i = 0; i < columnLabels.length; i++) {
+            columnIndexes.putIfAbsent(columnLabels[i], i + 1);
+        }
+        return columnIndexes;
+    }
+
+    private static MethodHandle unreflect(final Constructor<?> constructor) throws SQLException {
+        try {
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new SQLException("Cannot access " + constructor, e);
+        }
+    }
+
+    private static MethodHandle unreflect(final Method method) throws SQLException {
+        try {
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new SQLException("Cannot access " + method, e);
+        }
+    }
+
+    private static SQLException mappingFailure(final Throwable t) throws SQLException {
+        if (t instanceof SQLException) {
+            throw (SQLException) t;
+        }
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new SQLException("Mapping row failed", t);
+    }
+
+    private static ColumnReader columnReader(final Class<?> type) {
+        final ColumnReader reader = COLUMN_READERS.get(type);
+        return reader != null ? reader : (resultSet, columnIndex) -> resultSet.getObject(columnIndex, type);
+    }
+
+    private static Map<Class<?>, ColumnReader> columnReaders() {
+        final Map<Class<?>, ColumnReader> readers = new HashMap<>();
+        readers.put(int.class, ResultSet::getInt);
+        readers.put(long.class, ResultSet::getLong);
+        readers.put(double.class, ResultSet::getDouble);
+        readers.put(float.class, ResultSet::getFloat);
+        readers.put(short.class, ResultSet::getShort);
+        readers.put(byte.class, ResultSet::getByte);
+        readers.put(boolean.class, ResultSet::getBoolean);
+        readers.put(Integer.class, (resultSet, columnIndex) -> nullable(resultSet, resultSet.getInt(columnIndex)));
+        readers.put(Long.class, (resultSet, columnIndex) -> nullable(resultSet, resultSet.getLong(columnIndex)));
+        readers.put(Double.class, (resultSet, columnIndex) -> nullable(resultSet, resultSet.getDouble(columnIndex)));
+        readers.put(Boolean.class, (resultSet, columnIndex) -> nullable(resultSet, resultSet.getBoolean(columnIndex)));
+        readers.put(String.class, ResultSet::getString);
+        readers.put(BigDecimal.class, ResultSet::getBigDecimal);
+        readers.put(LocalDate.class, (resultSet, columnIndex) -> {
+            final Date date = resultSet.getDate(columnIndex);
+            return date == null ? null : date.toLocalDate();
+        });
+        readers.put(LocalDateTime.class, (resultSet, columnIndex) -> {
+            final Timestamp timestamp = resultSet.getTimestamp(columnIndex);
+            return timestamp == null ? null : timestamp.toLocalDateTime();
+        });
+        return readers;
+    }
+
+    private static Object nullable(final ResultSet resultSet, final Object value) throws SQLException {
+        return resultSet.wasNull() ? null : value;
+    }
+
+    /**
+     * Cache key consisting of the target class and the column labels of a {@link ResultSet}.
+     */
+    private static final class Layout {
+
+        private final Class<?> type;
+        private final String[] columnLabels;
+        private final int hashCode;
+
+        private Layout(final Class<?> type, final String[] columnLabels) {
+            this.type = type;
+            this.columnLabels = columnLabels;
+            this.hashCode = 31 * type.hashCode() + Arrays.hashCode(columnLabels);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+            final Layout layout = (Layout) o;
+            return type == layout.type && Arrays.equals(columnLabels, layout.columnLabels);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
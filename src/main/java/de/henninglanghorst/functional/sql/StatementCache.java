@@ -0,0 +1,274 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Function;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in cache of {@link PreparedStatement}s keyed by physical {@link Connection} and SQL text.
+ * <p>
+ * Statements created by this cache can be used with
+ * {@link DatabaseQueryFunctions#databaseQuery(Function, Function)} and
+ * {@link DatabaseUpdateFunctions#databaseUpdate(Function)} like any other statement. Closing them does not close
+ * the underlying statement but clears its parameters and returns it to the cache, where it is reused by the next
+ * request for the same SQL text on the same connection. Every connection holds at most {@code maximumSize}
+ * statements, the least recently used one is closed when the limit is exceeded.
+ * <p>
+ * Pooled connections, e.g. of a {@link ConnectionPool}, are new handles on every checkout. The cache therefore keys
+ * the statements by the physical connection obtained with {@link Connection#unwrap(Class)}, so statements are reused
+ * across checkouts of the same physical connection. The statements of physical connections which have been closed
+ * are dropped from the cache whenever the number of cached connections has doubled since the last check. Statements
+ * reused within
+ * {@link DatabaseOperationFunctions#doInDatabase(de.henninglanghorst.functional.sql.function.Supplier, Function,
+ * Deadline)} are bound to the deadline like newly prepared ones.
+ *
+ * @author Henning Langhorst
+ */
+public final class StatementCache {
+
+    private static final int MIN_PRUNE_THRESHOLD = 16;
+
+    private final int maximumSize;
+    private final Map<Connection, Map<String, PreparedStatement>> statementsByConnection = new IdentityHashMap<>();
+    private int pruneThreshold = MIN_PRUNE_THRESHOLD;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Creates a statement cache.
+     *
+     * @param maximumSize Maximum number of cached statements per connection.
+     */
+    public StatementCache(final int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Returns a function providing a cached {@link PreparedStatement} for the given SQL statement and parameters.
+     *
+     * @param sql        SQL statement.
+     * @param parameters Parameters to be set on the {@link PreparedStatement}.
+     * @return Function providing a statement from a connection.
+     */
+    public Function<Connection, PreparedStatement> statement(final String sql, final Object... parameters) {
+        return cached(new ParameterizedStatement(sql, parameters));
+    }
+
+    /**
+     * Returns a function providing a cached {@link PreparedStatement} for the given statement.
+     *
+     * @param statement SQL statement with its parameters.
+     * @return Function providing a statement from a connection.
+     */
+    public Function<Connection, PreparedStatement> cached(final ParameterizedStatement statement) {
+        return connection -> {
+            final PreparedStatement preparedStatement = checkout(connection, statement.getSql());
+            try {
+                statement.bindParameters(preparedStatement);
+                return preparedStatement;
+            } catch (SQLException e) {
+                preparedStatement.close();
+                throw e;
+            }
+        };
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Closes and removes all statements cached for the given connection.
+     *
+     * @param connection Connection whose statements are removed.
+     */
+    public void evict(final Connection connection) throws SQLException {
+        final Connection physicalConnection = physicalConnectionOf(connection);
+        final Map<String, PreparedStatement> statements;
+        synchronized (statementsByConnection) {
+            statements = statementsByConnection.remove(physicalConnection);
+        }
+        if (statements != null) {
+            statements.values().forEach(StatementCache::closeQuietly);
+        }
+    }
+
+    private PreparedStatement checkout(final Connection connection, final String sql) throws SQLException {
+        final Connection physicalConnection = physicalConnectionOf(connection);
+        final PreparedStatement cachedStatement;
+        synchronized (statementsByConnection) {
+            final Map<String, PreparedStatement> statements = statementsByConnection.get(physicalConnection);
+            cachedStatement = statements == null ? null : statements.remove(sql);
+        }
+        if (cachedStatement != null && !cachedStatement.isClosed()) {
+            hitCount.incrementAndGet();
+            DeadlineBoundConnection.bindStatement(connection, cachedStatement);
+            return cachingProxy(physicalConnection, sql, cachedStatement);
+        }
+        missCount.incrementAndGet();
+        return cachingProxy(physicalConnection, sql, connection.prepareStatement(sql));
+    }
+
+    private static Connection physicalConnectionOf(final Connection connection) throws SQLException {
+        return connection.isWrapperFor(Connection.class) ? connection.unwrap(Connection.class) : connection;
+    }
+
+    private void removeClosedConnections() {
+        final List<Connection> connections;
+        synchronized (statementsByConnection) {
+            connections = new ArrayList<>(statementsByConnection.keySet());
+        }
+        final List<Connection> closedConnections = new ArrayList<>();
+        for (final Connection connection : connections) {
+            if (isClosed(connection)) {
+                closedConnections.add(connection);
+            }
+        }
+        synchronized (statementsByConnection) {
+            closedConnections.forEach(statementsByConnection::remove);
+            pruneThreshold = Math.max(MIN_PRUNE_THRESHOLD, statementsByConnection.size() * 2);
+        }
+    }
+
+    private static boolean isClosed(final Connection connection) {
+        try {
+            return connection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private void checkin(final Connection connection, final String sql, final PreparedStatement preparedStatement) {
+        try {
+            preparedStatement.clearParameters();
+            preparedStatement.setQueryTimeout(0);
+        } catch (SQLException e) {
+            closeQuietly(preparedStatement);
+            return;
+        }
+        final PreparedStatement replaced;
+        final boolean prune;
+        synchronized (statementsByConnection) {
+            replaced = statementsByConnection
+                    .computeIfAbsent(connection, c -> new LeastRecentlyUsedStatements())
+                    .put(sql, preparedStatement);
+            prune = statementsByConnection.size() >= pruneThreshold;
+            if (prune) {
+                // suppresses concurrent pruning until the threshold is recalculated
+                pruneThreshold = Integer.MAX_VALUE;
+            }
+        }
+        if (replaced != null) {
+            closeQuietly(replaced);
+        }
+        if (prune) {
+            removeClosedConnections();
+        }
+    }
+
+    private PreparedStatement cachingProxy(final Connection connection,
+                                           final String sql,
+                                           final PreparedStatement preparedStatement) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new CachedStatementHandler(connection, sql, preparedStatement));
+    }
+
+    private static void closeQuietly(final PreparedStatement preparedStatement) {
+        try {
+            preparedStatement.close();
+        } catch (SQLException e) {
+            // statement is discarded anyway
+        }
+    }
+
+    private final class LeastRecentlyUsedStatements extends LinkedHashMap<String, PreparedStatement> {
+
+        private static final long serialVersionUID = 1L;
+
+        private LeastRecentlyUsedStatements() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, PreparedStatement> eldest) {
+            if (size() > maximumSize) {
+                evictionCount.incrementAndGet();
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Delegates all calls to the cached statement, except for {@code close} returning it to the cache.
+     */
+    private final class CachedStatementHandler implements InvocationHandler {
+
+        private final Connection connection;
+        private final String sql;
+        private final PreparedStatement delegate;
+        private boolean closed;
+
+        private CachedStatementHandler(final Connection connection,
+                                       final String sql,
+                                       final PreparedStatement delegate) {
+            this.connection = connection;
+            this.sql = sql;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        checkin(connection, sql, delegate);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || delegate.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    if (closed && method.getDeclaringClass() != Object.class) {
+                        throw new SQLException("Statement is closed");
+                    }
+                    try {
+                        return method.invoke(delegate, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package de.henninglanghorst.functional.sql;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Typed setters for the parameters of a {@link PreparedStatement}, passed to a {@link ParameterBinder}. Every setter
+ * sets the next parameter, starting with the first one.
+ * <p>
+ * Instances are reused per thread and must not be kept by a {@link ParameterBinder} beyond its invocation.
+ *
+ * @author Henning Langhorst
+ */
+public final class StatementParameters {
+
+    private static final ThreadLocal<StatementParameters> REUSABLE_PARAMETERS =
+            ThreadLocal.withInitial(StatementParameters::new);
+
+    private PreparedStatement preparedStatement;
+    private List<Object> recordedValues;
+    private int index;
+
+    private StatementParameters() {
+    }
+
+    /**
+     * Sets the parameters of the given binder on a prepared statement.
+     *
+     * @param preparedStatement Statement on which the parameters are set.
+     * @param binder            Binder setting the parameters.
+     * @throws SQLException If setting a parameter fails.
+     */
+    static void bind(final PreparedStatement preparedStatement, final ParameterBinder binder) throws SQLException {
+        StatementParameters parameters = REUSABLE_PARAMETERS.get();
+        if (parameters.preparedStatement != null) {
+            parameters = new StatementParameters();
+        }
+        parameters.preparedStatement = preparedStatement;
+        parameters.index = 0;
+        try {
+            binder.bind(parameters);
+        } finally {
+            parameters.preparedStatement = null;
+        }
+    }
+
+    /**
+     * Sets the parameters of the given row on a prepared statement.
+     *
+     * @param preparedStatement Statement on which the parameters are set.
+     * @param row               Row object providing the values.
+     * @param binder            Binder setting the parameters from the row.
+     * @param <T>               Type of the row object.
+     * @throws SQLException If setting a parameter fails.
+     */
+    static <T> void bind(final PreparedStatement preparedStatement, final T row, final RowBinder<T> binder)
+            throws SQLException {
+        StatementParameters parameters = REUSABLE_PARAMETERS.get();
+        if (parameters.preparedStatement != null) {
+            parameters = new StatementParameters();
+        }
+        parameters.preparedStatement = preparedStatement;
+        parameters.index = 0;
+        try {
+            binder.bind(row, parameters);
+        } finally {
+            parameters.preparedStatement = null;
+        }
+    }
+
+    /**
+     * Records the parameter values the given binder would set, e.g. for use as a cache key.
+     *
+     * @param binder Binder setting the parameters.
+     * @return Parameter values in placeholder order, {@code null} for SQL {@code NULL}.
+     * @throws SQLException If the binder fails.
+     */
+    static Object[] record(final ParameterBinder binder) throws SQLException {
+        final StatementParameters parameters = new StatementParameters();
+        parameters.recordedValues = new ArrayList<>();
+        binder.bind(parameters);
+        return parameters.recordedValues.toArray();
+    }
+
+    public StatementParameters setInt(final int value) throws SQLException {
+        if (recordedValues != null) {
+            recordedValues.add(value);
+        } else {
+            preparedStatement.setInt(++index, value);
+        }
+        return this;
+    }
+
+    public StatementParameters setLong(final long value) throws SQLException {
+        if (recordedValues != null) {
+            recordedValues.add(value);
+        } else {
+            preparedStatement.setLong(++index, value);
+        }
+        return this;
+    }
+
+    public StatementParameters setDouble(final double value) throws SQLException {
+        if (recordedValues != null) {
+            recordedValues.add(value);
+        } else {
+            preparedStatement.setDouble(++index, value);
+        }
+        return this;
+    }
+
+    public StatementParameters setBoolean(final boolean value) throws SQLException {
+        if (recordedValues != null) {
+            recordedValues.add(value);
+        } else {
+            preparedStatement.setBoolean(++index, value);
+        }
+        return this;
+    }
+
+    public StatementParameters setString(final String value) throws SQLException {
+        if (value == null) {
+            return setNull(Types.VARCHAR);
+        }
+        if (recordedValues != null) {
+            recordedValues.add(value);
+        } else {
+            preparedStatement.setString(++index, value);
+        }
+        return this;
+    }
+
+    public StatementParameters setBigDecimal(final BigDecimal value) throws SQLException {
+        if (value == null) {
+            return setNull(Types.DECIMAL);
+        }
+        if (recordedValues != null) {
+            recordedValues.add(value);
+        } else {
+            preparedStatement.setBigDecimal(++index, value);
+        }
+        return this;
+    }
+
+    public StatementParameters setDate(final LocalDate value) throws SQLException {
+        if (value == null) {
+            return setNull(Types.DATE);
+        }
+        final Date date = Date.valueOf(value);
+        if (recordedValues != null) {
+            recordedValues.add(date);
+        } else {
+            preparedStatement.setDate(++index, date);
+        }
+        return this;
+    }
+
+    public StatementParameters setTimestamp(final LocalDateTime value) throws SQLException {
+        if (value == null) {
+            return setNull(Types.TIMESTAMP);
+        }
+        final Timestamp timestamp = Timestamp.valueOf(value);
+        if (recordedValues != null) {
+            recordedValues.add(timestamp);
+        } else {
+            preparedStatement.setTimestamp(++index, timestamp);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the next parameter to SQL {@code NULL}.
+     *
+     * @param sqlType SQL type of the parameter as defined in {@link Types}.
+     * @return These parameters.
+     * @throws SQLException If setting the parameter fails.
+     */
+    public StatementParameters setNull(final int sqlType) throws SQLException {
+        if (recordedValues != null) {
+            recordedValues.add(null);
+        } else {
+            preparedStatement.setNull(++index, sqlType);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the next parameter using {@link PreparedStatement#setObject(int, Object)} for types without a typed setter.
+     *
+     * @param value Value of the parameter.
+     * @return These parameters.
+     * @throws SQLException If setting the parameter fails.
+     */
+    public StatementParameters setObject(final Object value) throws SQLException {
+        if (recordedValues != null) {
+            recordedValues.add(value);
+        } else {
+            preparedStatement.setObject(++index, value);
+        }
+        return this;
+    }
+}
@@ -0,0 +1,28 @@
+package de.henninglanghorst.functional.sql;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown if a query expected to return at most one row returns more than one row. The exception does not record a
+ * stack trace, like {@link NoDataFoundException}.
+ *
+ * @author Henning Langhorst
+ */
+public class TooManyRowsException extends SQLException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * SQL state of the exception, which is the standard SQL state for a cardinality violation.
+     */
+    public static final String SQL_STATE = "21000";
+
+    public TooManyRowsException() {
+        super("More than one record in result", SQL_STATE);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,24 @@
+package de.henninglanghorst.functional.sql;
+
+import java.sql.SQLException;
+import java.util.Objects;
+
+/**
+ * Wraps an {@link SQLException} with an unchecked exception, for use in places where checked exceptions cannot be
+ * thrown, e.g. while iterating a {@link java.util.stream.Stream}.
+ *
+ * @author Henning Langhorst
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UncheckedSQLException(final SQLException cause) {
+        super(Objects.requireNonNull(cause));
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
@@ -0,0 +1,20 @@
+package de.henninglanghorst.functional.sql;
+
+/**
+ * Listener notified about SQL updates performed by the functions in {@link DatabaseUpdateFunctions} it has been passed
+ * to, e.g. {@link DatabaseUpdateFunctions#databaseUpdate(de.henninglanghorst.functional.sql.function.Function,
+ * UpdateListener)}.
+ *
+ * @author Henning Langhorst
+ */
+@FunctionalInterface
+public interface UpdateListener {
+
+    /**
+     * Invoked after an update statement has been executed, regardless of whether it succeeded, because a failed
+     * batch may have been applied partially. Updates within a transaction are reported again after the commit.
+     *
+     * @param sql SQL text of the update statement.
+     */
+    void afterUpdate(String sql);
+}
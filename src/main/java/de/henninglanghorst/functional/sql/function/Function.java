@@ -1,6 +1,11 @@
 package de.henninglanghorst.functional.sql.function;
 
+import de.henninglanghorst.functional.util.Pair;
+
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Represents a function which can throw an {@link SQLException}.
@@ -18,4 +23,58 @@ public interface Function<T, R> {
     default Supplier<R> curry(T t) {
         return () -> apply(t);
     }
+
+    /**
+     * Combines this function with another function applied to the same argument, e.g. two queries performed on the
+     * same connection.
+     *
+     * @param other Function applied after this function.
+     * @param <S>   Result type of the other function.
+     * @return Function returning the results of both functions.
+     */
+    default <S> Function<T, Pair<R, S>> zip(Function<T, S> other) {
+        return t -> {
+            final R result = apply(t);
+            return Pair.of(result, other.apply(t));
+        };
+    }
+
+    /**
+     * Combines functions which are applied to the same argument one after another, e.g. queries performed on the same
+     * connection.
+     *
+     * @param functions Functions to be applied in list order.
+     * @param <T>       Type of the argument.
+     * @param <R>       Result type of the functions.
+     * @return Function returning the results of all functions in list order.
+     */
+    static <T, R> Function<T, List<R>> sequence(List<? extends Function<T, ? extends R>> functions) {
+        return t -> {
+            final List<R> results = new ArrayList<>(functions.size());
+            for (Function<T, ? extends R> function : functions) {
+                results.add(function.apply(t));
+            }
+            return results;
+        };
+    }
+
+    /**
+     * Creates a function for every item and combines them like {@link #sequence(List)}, e.g. one query per key
+     * performed on the same connection.
+     *
+     * @param items           Items for which functions are created.
+     * @param functionFactory Creates the function for an item.
+     * @param <A>             Type of the items.
+     * @param <T>             Type of the argument.
+     * @param <R>             Result type of the functions.
+     * @return Function returning the results for all items in iteration order.
+     */
+    static <A, T, R> Function<T, List<R>> traverse(Collection<A> items,
+                                                   java.util.function.Function<? super A, ? extends Function<T, ? extends R>> functionFactory) {
+        final List<Function<T, ? extends R>> functions = new ArrayList<>(items.size());
+        for (A item : items) {
+            functions.add(functionFactory.apply(item));
+        }
+        return sequence(functions);
+    }
 }
@@ -0,0 +1,91 @@
+package de.henninglanghorst.functional.sql.instrumentation;
+
+import java.sql.SQLException;
+
+/**
+ * Service provider interface notified about the phases of database operations: connection acquisition, statement
+ * preparation, execution and row mapping. All durations are given in nanoseconds.
+ * <p>
+ * Implementations are called on the threads performing the database operations and must therefore be thread-safe
+ * and fast. The active implementation is managed by {@link InstrumentationRegistry}. All methods have empty default
+ * implementations, so implementations only override the events they are interested in.
+ *
+ * @author Henning Langhorst
+ */
+public interface Instrumentation {
+
+    /**
+     * Instrumentation ignoring all events.
+     */
+    Instrumentation NONE = new Instrumentation() {
+    };
+
+    /**
+     * SQL text reported for statements whose SQL text is not known, e.g. statements not created by
+     * {@link de.henninglanghorst.functional.sql.DatabaseStatementFunctions#statement(String, Object...)}.
+     */
+    String UNKNOWN_SQL = "<unknown>";
+
+    /**
+     * A connection has been obtained from the connection factory, e.g. a connection pool.
+     *
+     * @param waitNanos Time needed to obtain the connection.
+     */
+    default void connectionAcquired(long waitNanos) {
+    }
+
+    /**
+     * A statement has been prepared including setting its parameters.
+     *
+     * @param sql   SQL text of the statement.
+     * @param nanos Time needed for preparation.
+     */
+    default void statementPrepared(String sql, long nanos) {
+    }
+
+    /**
+     * A query has been executed.
+     *
+     * @param sql   SQL text of the statement.
+     * @param nanos Time needed for execution, excluding row mapping.
+     */
+    default void queryExecuted(String sql, long nanos) {
+    }
+
+    /**
+     * The rows of a query have been mapped by the result set extraction.
+     *
+     * @param sql      SQL text of the statement.
+     * @param nanos    Time needed for mapping the rows.
+     * @param rowCount Number of rows fetched as reported by the extraction result.
+     */
+    default void rowsMapped(String sql, long nanos, long rowCount) {
+    }
+
+    /**
+     * An update or a batch of updates has been executed.
+     *
+     * @param sql      SQL text of the statement.
+     * @param nanos    Time needed for execution.
+     * @param rowCount Number of updated rows.
+     */
+    default void updateExecuted(String sql, long nanos, long rowCount) {
+    }
+
+    /**
+     * Preparing or executing a statement failed.
+     *
+     * @param sql       SQL text of the statement.
+     * @param exception The exception thrown.
+     */
+    default void statementFailed(String sql, SQLException exception) {
+    }
+
+    /**
+     * A database operation performed with {@code doInDatabase} failed, including failures to obtain a connection.
+     *
+     * @param exception The exception returned as result of the operation.
+     */
+    default void operationFailed(SQLException exception) {
+    }
+}
@@ -0,0 +1,48 @@
+package de.henninglanghorst.functional.sql.instrumentation;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+/**
+ * Holds the {@link Instrumentation} used by the database functions.
+ * <p>
+ * Initially the first implementation registered as service in
+ * {@code META-INF/services/de.henninglanghorst.functional.sql.instrumentation.Instrumentation} is used, or
+ * {@link Instrumentation#NONE} if there is none. Another implementation, e.g. a {@link MetricsInstrumentation}, can
+ * be installed at runtime.
+ *
+ * @author Henning Langhorst
+ */
+public final class InstrumentationRegistry {
+
+    private static volatile Instrumentation current = loadServiceProvider();
+
+    private InstrumentationRegistry() {
+    }
+
+    /**
+     * Returns the active instrumentation.
+     *
+     * @return Instrumentation to be notified, never {@code null}.
+     */
+    public static Instrumentation current() {
+        return current;
+    }
+
+    /**
+     * Installs the given instrumentation.
+     *
+     * @param instrumentation Instrumentation to be notified from now on, {@code null} for none.
+     * @param <I>             Type of the instrumentation.
+     * @return The installed instrumentation.
+     */
+    public static <I extends Instrumentation> I install(final I instrumentation) {
+        current = instrumentation == null ? Instrumentation.NONE : instrumentation;
+        return instrumentation;
+    }
+
+    private static Instrumentation loadServiceProvider() {
+        final Iterator<Instrumentation> providers = ServiceLoader.load(Instrumentation.class).iterator();
+        return providers.hasNext() ? providers.next() : Instrumentation.NONE;
+    }
+}
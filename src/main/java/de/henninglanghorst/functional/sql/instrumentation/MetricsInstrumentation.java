@@ -0,0 +1,85 @@
+package de.henninglanghorst.functional.sql.instrumentation;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link Instrumentation} recording latency histograms, row counts and errors per SQL statement, the connection
+ * acquisition (pool wait) time and the number of failed operations per SQLState.
+ * <p>
+ * Recording is lock-free: besides one map lookup per event it only updates atomic counters. The number of distinct
+ * SQL texts should be bounded, i.e. parameters should be bound instead of being concatenated into the SQL text.
+ * <p>
+ * Usage: {@code MetricsInstrumentation metrics = InstrumentationRegistry.install(new MetricsInstrumentation());}
+ * and later {@code metrics.snapshot()}.
+ *
+ * @author Henning Langhorst
+ */
+public final class MetricsInstrumentation implements Instrumentation {
+
+    private static final String UNKNOWN_SQL_STATE = "<none>";
+
+    private final LatencyHistogram connectionAcquisition = new LatencyHistogram();
+    private final Map<String, StatementMetrics> statementMetrics = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errorsBySqlState = new ConcurrentHashMap<>();
+
+    @Override
+    public void connectionAcquired(final long waitNanos) {
+        connectionAcquisition.record(waitNanos);
+    }
+
+    @Override
+    public void statementPrepared(final String sql, final long nanos) {
+        metricsOf(sql).recordPreparation(nanos);
+    }
+
+    @Override
+    public void queryExecuted(final String sql, final long nanos) {
+        metricsOf(sql).recordQuery(nanos);
+    }
+
+    @Override
+    public void rowsMapped(final String sql, final long nanos, final long rowCount) {
+        metricsOf(sql).recordMapping(nanos, rowCount);
+    }
+
+    @Override
+    public void updateExecuted(final String sql, final long nanos, final long rowCount) {
+        metricsOf(sql).recordUpdate(nanos, rowCount);
+    }
+
+    @Override
+    public void statementFailed(final String sql, final SQLException exception) {
+        metricsOf(sql).recordError();
+    }
+
+    @Override
+    public void operationFailed(final SQLException exception) {
+        final String sqlState = exception.getSQLState() == null ? UNKNOWN_SQL_STATE : exception.getSQLState();
+        errorsBySqlState.computeIfAbsent(sqlState, state -> new LongAdder()).increment();
+    }
+
+    private StatementMetrics metricsOf(final String sql) {
+        final StatementMetrics metrics = statementMetrics.get(sql);
+        return metrics != null ? metrics : statementMetrics.computeIfAbsent(sql, s -> new StatementMetrics());
+    }
+
+    /**
+     * Removes all recorded statement metrics and error counts. The connection acquisition histogram is kept.
+     */
+    public void reset() {
+        statementMetrics.clear();
+        errorsBySqlState.clear();
+    }
+
+    /**
+     * Creates a snapshot of all recorded metrics.
+     *
+     * @return The snapshot.
+     */
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(connectionAcquisition.snapshot(), statementMetrics, errorsBySqlState);
+    }
+}
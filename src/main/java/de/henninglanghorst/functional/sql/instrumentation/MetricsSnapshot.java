@@ -0,0 +1,72 @@
+package de.henninglanghorst.functional.sql.instrumentation;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Immutable snapshot of the metrics recorded by {@link MetricsInstrumentation}.
+ *
+ * @author Henning Langhorst
+ */
+public final class MetricsSnapshot {
+
+    private final LatencyHistogram.Snapshot connectionAcquisition;
+    private final Map<String, StatementMetrics.Snapshot> statements;
+    private final Map<String, Long> errorsBySqlState;
+
+    MetricsSnapshot(final LatencyHistogram.Snapshot connectionAcquisition,
+                    final Map<String, StatementMetrics> statementMetrics,
+                    final Map<String, LongAdder> errorsBySqlState) {
+        this.connectionAcquisition = connectionAcquisition;
+        final Map<String, StatementMetrics.Snapshot> statements = new LinkedHashMap<>();
+        statementMetrics.forEach((sql, metrics) -> statements.put(sql, metrics.snapshot()));
+        this.statements = Collections.unmodifiableMap(statements);
+        final Map<String, Long> errors = new LinkedHashMap<>();
+        errorsBySqlState.forEach((sqlState, count) -> errors.put(sqlState, count.sum()));
+        this.errorsBySqlState = Collections.unmodifiableMap(errors);
+    }
+
+    public LatencyHistogram.Snapshot getConnectionAcquisition() {
+        return connectionAcquisition;
+    }
+
+    /**
+     * Returns the metrics per SQL text.
+     *
+     * @return Unmodifiable map from SQL text to its metrics.
+     */
+    public Map<String, StatementMetrics.Snapshot> getStatements() {
+        return statements;
+    }
+
+    public Map<String, Long> getErrorsBySqlState() {
+        return errorsBySqlState;
+    }
+
+    /**
+     * Returns the SQL text with the highest total execution time.
+     *
+     * @return The SQL text, empty if no statement has been executed.
+     */
+    public Optional<String> getSlowestStatement() {
+        return statements.entrySet().stream()
+                .max(Comparator.comparingDouble(entry -> totalExecutionNanos(entry.getValue())))
+                .map(Map.Entry::getKey);
+    }
+
+    private static double totalExecutionNanos(final StatementMetrics.Snapshot snapshot) {
+        return snapshot.getExecution().getMeanNanos() * snapshot.getExecution().getCount()
+                + snapshot.getMapping().getMeanNanos() * snapshot.getMapping().getCount();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("connectionAcquisition(").append(connectionAcquisition).append(')');
+        statements.forEach((sql, snapshot) -> builder.append("\n  ").append(sql).append(": ").append(snapshot));
+        return builder.append("\n  errorsBySqlState=").append(errorsBySqlState).toString();
+    }
+}
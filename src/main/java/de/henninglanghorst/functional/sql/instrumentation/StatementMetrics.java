@@ -0,0 +1,101 @@
+package de.henninglanghorst.functional.sql.instrumentation;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics recorded by {@link MetricsInstrumentation} for one SQL statement.
+ *
+ * @author Henning Langhorst
+ */
+public final class StatementMetrics {
+
+    private final LatencyHistogram preparation = new LatencyHistogram();
+    private final LatencyHistogram execution = new LatencyHistogram();
+    private final LatencyHistogram mapping = new LatencyHistogram();
+    private final LongAdder rowsFetched = new LongAdder();
+    private final LongAdder rowsUpdated = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    void recordPreparation(final long nanos) {
+        preparation.record(nanos);
+    }
+
+    void recordQuery(final long nanos) {
+        execution.record(nanos);
+    }
+
+    void recordMapping(final long nanos, final long rowCount) {
+        mapping.record(nanos);
+        rowsFetched.add(rowCount);
+    }
+
+    void recordUpdate(final long nanos, final long rowCount) {
+        execution.record(nanos);
+        rowsUpdated.add(rowCount);
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    /**
+     * Creates a snapshot of the metrics.
+     *
+     * @return The snapshot.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * Immutable state of {@link StatementMetrics}.
+     */
+    public static final class Snapshot {
+
+        private final LatencyHistogram.Snapshot preparation;
+        private final LatencyHistogram.Snapshot execution;
+        private final LatencyHistogram.Snapshot mapping;
+        private final long rowsFetched;
+        private final long rowsUpdated;
+        private final long errors;
+
+        private Snapshot(final StatementMetrics metrics) {
+            this.preparation = metrics.preparation.snapshot();
+            this.execution = metrics.execution.snapshot();
+            this.mapping = metrics.mapping.snapshot();
+            this.rowsFetched = metrics.rowsFetched.sum();
+            this.rowsUpdated = metrics.rowsUpdated.sum();
+            this.errors = metrics.errors.sum();
+        }
+
+        public LatencyHistogram.Snapshot getPreparation() {
+            return preparation;
+        }
+
+        public LatencyHistogram.Snapshot getExecution() {
+            return execution;
+        }
+
+        public LatencyHistogram.Snapshot getMapping() {
+            return mapping;
+        }
+
+        public long getRowsFetched() {
+            return rowsFetched;
+        }
+
+        public long getRowsUpdated() {
+            return rowsUpdated;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        @Override
+        public String toString() {
+            return "preparation(" + preparation + "), execution(" + execution + "), mapping(" + mapping + ")"
+                    + ", rowsFetched=" + rowsFetched + ", rowsUpdated=" + rowsUpdated + ", errors=" + errors;
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package de.henninglanghorst.functional.util;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Represent object which can contain either a value of type {@link A} or a value of type {@link B}.
@@ -20,6 +23,18 @@ public interface Either<A, B> {
         return new Right<>(value);
     }
 
+    /**
+     * Returns a shared instance containing an empty list as left value.
+     *
+     * @param <E> Type of the list elements.
+     * @param <B> Type of the right value.
+     * @return Left value containing an immutable empty list.
+     */
+    @SuppressWarnings("unchecked")
+    static <E, B> Either<List<E>, B> emptyListLeft() {
+        return (Either<List<E>, B>) Left.EMPTY_LIST;
+    }
+
     boolean isLeft();
 
     boolean isRight();
@@ -29,10 +44,69 @@ public interface Either<A, B> {
     Optional<B> right();
 
     void handle(Consumer<A> leftConsumer, Consumer<B> rightConsumer);
+
+    /**
+     * Maps the left value. A right value is returned unchanged without creating a new instance.
+     *
+     * @param mapper Function mapping the left value.
+     * @param <C>    Type of the mapped left value.
+     * @return Either the mapped left value or this right value.
+     */
+    <C> Either<C, B> map(Function<? super A, ? extends C> mapper);
+
+    /**
+     * Maps the left value to another {@link Either}, e.g. the result of a subsequent database operation. A right value
+     * is returned unchanged without creating a new instance.
+     *
+     * @param mapper Function mapping the left value.
+     * @param <C>    Type of the left value of the resulting {@link Either}.
+     * @return Either the result of the mapper or this right value.
+     */
+    <C> Either<C, B> flatMap(Function<? super A, Either<C, B>> mapper);
+
+    /**
+     * Maps the right value. A left value is returned unchanged without creating a new instance.
+     *
+     * @param mapper Function mapping the right value.
+     * @param <C>    Type of the mapped right value.
+     * @return Either this left value or the mapped right value.
+     */
+    <C> Either<A, C> mapRight(Function<? super B, ? extends C> mapper);
+
+    /**
+     * Maps the left or the right value to a common result type.
+     *
+     * @param leftMapper  Function mapping the left value.
+     * @param rightMapper Function mapping the right value.
+     * @param <C>         Result type.
+     * @return Result of the mapper applied to the contained value.
+     */
+    <C> C fold(Function<? super A, ? extends C> leftMapper, Function<? super B, ? extends C> rightMapper);
+
+    /**
+     * Returns the left value or the given value if this is a right value.
+     *
+     * @param other Value returned if this is a right value.
+     * @return The left value or {@code other}.
+     */
+    A getOrElse(A other);
+
+    /**
+     * Returns the left value or throws an exception created from the right value, e.g.
+     * {@code either.orElseThrow(UncheckedSQLException::new)}.
+     *
+     * @param exceptionMapper Function creating the exception from the right value.
+     * @param <X>             Type of the exception.
+     * @return The left value.
+     * @throws X If this is a right value.
+     */
+    <X extends Throwable> A orElseThrow(Function<? super B, ? extends X> exceptionMapper) throws X;
 }
 
 class Left<A, B> implements Either<A, B> {
 
+    static final Either<?, ?> EMPTY_LIST = new Left<>(Collections.emptyList());
+
     private final A value;
 
     public Left(final A value) {
@@ -64,6 +138,38 @@ class Left<A, B> implements Either<A, B> {
         leftConsumer.accept(value);
     }
 
+    @Override
+    public <C> Either<C, B> map(final Function<? super A, ? extends C> mapper) {
+        return new Left<>(mapper.apply(value));
+    }
+
+    @Override
+    public <C> Either<C, B> flatMap(final Function<? super A, Either<C, B>> mapper) {
+        return mapper.apply(value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <C> Either<A, C> mapRight(final Function<? super B, ? extends C> mapper) {
+        return (Either<A, C>) this;
+    }
+
+    @Override
+    public <C> C fold(final Function<? super A, ? extends C> leftMapper,
+                      final Function<? super B, ? extends C> rightMapper) {
+        return leftMapper.apply(value);
+    }
+
+    @Override
+    public A getOrElse(final A other) {
+        return value;
+    }
+
+    @Override
+    public <X extends Throwable> A orElseThrow(final Function<? super B, ? extends X> exceptionMapper) {
+        return value;
+    }
+
     @Override
     public String toString() {
         return "Left(" + value + ")";
@@ -118,6 +224,39 @@ class Right<A, B> implements Either<A, B> {
         rightConsumer.accept(value);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public <C> Either<C, B> map(final Function<? super A, ? extends C> mapper) {
+        return (Either<C, B>) this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <C> Either<C, B> flatMap(final Function<? super A, Either<C, B>> mapper) {
+        return (Either<C, B>) this;
+    }
+
+    @Override
+    public <C> Either<A, C> mapRight(final Function<? super B, ? extends C> mapper) {
+        return new Right<>(mapper.apply(value));
+    }
+
+    @Override
+    public <C> C fold(final Function<? super A, ? extends C> leftMapper,
+                      final Function<? super B, ? extends C> rightMapper) {
+        return rightMapper.apply(value);
+    }
+
+    @Override
+    public A getOrElse(final A other) {
+        return other;
+    }
+
+    @Override
+    public <X extends Throwable> A orElseThrow(final Function<? super B, ? extends X> exceptionMapper) throws X {
+        throw exceptionMapper.apply(value);
+    }
+
     @Override
     public String toString() {
         return "Right(" + value + ")";
@@ -0,0 +1,53 @@
+package de.henninglanghorst.functional.util;
+
+import java.util.Objects;
+
+/**
+ * Immutable pair of two values.
+ *
+ * @param <A> Type of the first value.
+ * @param <B> Type of the second value.
+ * @author Henning Langhorst
+ */
+public final class Pair<A, B> {
+
+    private final A first;
+    private final B second;
+
+    private Pair(final A first, final B second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    public static <A, B> Pair<A, B> of(final A first, final B second) {
+        return new Pair<>(first, second);
+    }
+
+    public A getFirst() {
+        return first;
+    }
+
+    public B getSecond() {
+        return second;
+    }
+
+    @Override
+    public String toString() {
+        return "Pair(" + first + ", " + second + ")";
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        final Pair<?, ?> pair = (Pair<?, ?>) o;
+        return Objects.equals(first, pair.first) && Objects.equals(second, pair.second);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(first, second);
+    }
+}
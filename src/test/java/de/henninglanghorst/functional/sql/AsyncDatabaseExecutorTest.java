@@ -0,0 +1,155 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.util.Either;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests class {@link AsyncDatabaseExecutor}.
+ *
+ * @author Henning Langhorst
+ */
+public class AsyncDatabaseExecutorTest {
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement preparedStatement;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private AsyncDatabaseExecutor executor;
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executor.close();
+    }
+
+    @Test
+    public void submitShouldCompleteFutureWithResult() throws Exception {
+        // given
+        executor = new AsyncDatabaseExecutor(() -> connection, 1, 1);
+
+        // when
+        final Either<String, SQLException> result = executor.submit(c -> "DB result").get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(result).isEqualTo(Either.left("DB result"));
+    }
+
+    @Test
+    public void submitShouldCompleteFutureExceptionallyOnRuntimeException() throws Exception {
+        // given
+        executor = new AsyncDatabaseExecutor(() -> connection, 1, 1);
+
+        // when
+        final CompletableFuture<Either<String, SQLException>> future = executor.submit(c -> {
+            throw new IllegalStateException("Mapping failed");
+        });
+
+        // then
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    public void submitShouldRejectOperationsBeyondMaximumInFlight() throws Exception {
+        // given
+        executor = new AsyncDatabaseExecutor(() -> connection, 1, 1);
+        executor.submit(c -> awaitRelease());
+
+        // when
+        final Either<String, SQLException> result = executor.submit(c -> "DB result").get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(result.right().map(Object::getClass)).contains(SQLTransientException.class);
+        assertThat(executor.getInFlightCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void submitWithTimeoutShouldCompleteFutureWithTimeoutException() throws Exception {
+        // given
+        executor = new AsyncDatabaseExecutor(() -> connection, 1, 1);
+
+        // when
+        final CompletableFuture<Either<Boolean, SQLException>> future =
+                executor.submit(c -> awaitRelease(), Duration.ofMillis(50));
+
+        // then
+        assertThat(future.get(5, TimeUnit.SECONDS).right().map(Object::getClass)).contains(SQLTimeoutException.class);
+    }
+
+    @Test
+    public void submitWithTimeoutShouldNotInterruptWorkerThread() throws Exception {
+        // given
+        executor = new AsyncDatabaseExecutor(() -> connection, 1, 1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final CompletableFuture<Either<Boolean, SQLException>> future = executor.submit(c -> {
+            final boolean released = awaitRelease();
+            interrupted.set(Thread.currentThread().isInterrupted());
+            return released;
+        }, Duration.ofMillis(50));
+
+        // when
+        future.get(5, TimeUnit.SECONDS);
+        release.countDown();
+
+        // then
+        while (executor.getInFlightCount() > 0) {
+            Thread.sleep(10);
+        }
+        assertThat(interrupted.get()).isFalse();
+    }
+
+    @Test
+    public void submitWithTimeoutShouldApplyQueryTimeoutToStatements() throws Exception {
+        // given
+        executor = new AsyncDatabaseExecutor(() -> connection, 1, 1);
+        given(connection.prepareStatement("SELECT 1")).willReturn(preparedStatement);
+
+        // when
+        executor.submit(c -> c.prepareStatement("SELECT 1"), Duration.ofSeconds(30)).get(5, TimeUnit.SECONDS);
+
+        // then
+        verify(preparedStatement).setQueryTimeout(30);
+    }
+
+    private boolean awaitRelease() {
+        try {
+            return release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.util.Either;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests class {@link BatchLoader}.
+ *
+ * @author Henning Langhorst
+ */
+public class BatchLoaderTest {
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private Connection connection;
+
+    private final List<List<String>> requestedBatches = new CopyOnWriteArrayList<>();
+
+    private BatchLoader<String, String> batchLoader;
+
+    @After
+    public void tearDown() {
+        batchLoader.close();
+    }
+
+    @Test
+    public void loadShouldCombineKeysRequestedWithinMaxWaitIntoOneBatch() throws Exception {
+        // given
+        batchLoader = BatchLoader.<String, String>builder(() -> connection, this::upperCaseRows, this::keyOf)
+                .maxWait(Duration.ofMillis(50))
+                .build();
+
+        // when
+        final CompletableFuture<Either<String, SQLException>> a = batchLoader.load("a");
+        final CompletableFuture<Either<String, SQLException>> b = batchLoader.load("b");
+        final CompletableFuture<Either<String, SQLException>> sameA = batchLoader.load("a");
+
+        // then
+        assertThat(a.get(5, TimeUnit.SECONDS)).isEqualTo(Either.left("A"));
+        assertThat(b.get(5, TimeUnit.SECONDS)).isEqualTo(Either.left("B"));
+        assertThat(sameA).isSameAs(a);
+        assertThat(requestedBatches).hasSize(1);
+        assertThat(requestedBatches.get(0)).containsExactly("a", "b");
+    }
+
+    @Test
+    public void loadShouldDispatchBatchWhenMaxBatchSizeIsReached() throws Exception {
+        // given
+        batchLoader = BatchLoader.<String, String>builder(() -> connection, this::upperCaseRows, this::keyOf)
+                .maxBatchSize(2)
+                .maxWait(Duration.ofMinutes(1))
+                .build();
+
+        // when
+        batchLoader.load("a");
+        final Either<String, SQLException> result = batchLoader.load("b").get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(result).isEqualTo(Either.left("B"));
+    }
+
+    @Test
+    public void loadAfterCloseShouldCompleteFutureWithException() throws Exception {
+        // given
+        batchLoader = BatchLoader.<String, String>builder(() -> connection, this::upperCaseRows, this::keyOf).build();
+        batchLoader.close();
+
+        // when
+        final CompletableFuture<Either<String, SQLException>> result = batchLoader.load("a");
+
+        // then
+        assertThat(result.get(5, TimeUnit.SECONDS).isRight()).isTrue();
+        assertThat(requestedBatches).isEmpty();
+    }
+
+    @Test
+    public void loadShouldReturnErrorForKeyWithoutRow() throws Exception {
+        // given
+        batchLoader = BatchLoader.<String, String>builder(() -> connection, this::upperCaseRows, this::keyOf)
+                .maxBatchSize(2)
+                .build();
+
+        // when
+        final CompletableFuture<Either<String, SQLException>> found = batchLoader.load("a");
+        final CompletableFuture<Either<String, SQLException>> missing = batchLoader.load("missing");
+
+        // then
+        assertThat(found.get(5, TimeUnit.SECONDS)).isEqualTo(Either.left("A"));
+        assertThat(missing.get(5, TimeUnit.SECONDS).right().map(Throwable::getMessage)).contains("No data found");
+    }
+
+    @Test
+    public void loadShouldReturnCachedResultWhenCachingIsEnabled() throws Exception {
+        // given
+        batchLoader = BatchLoader.<String, String>builder(() -> connection, this::upperCaseRows, this::keyOf)
+                .maxBatchSize(1)
+                .cachingEnabled(true)
+                .build();
+        batchLoader.load("a").get(5, TimeUnit.SECONDS);
+
+        // when
+        final Either<String, SQLException> result = batchLoader.load("a").get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(result).isEqualTo(Either.left("A"));
+        assertThat(requestedBatches).hasSize(1);
+    }
+
+    private de.henninglanghorst.functional.sql.function.Function<Connection, List<String>> upperCaseRows(
+            final List<String> keys) {
+        return c -> {
+            requestedBatches.add(keys);
+            final List<String> rows = new ArrayList<>();
+            keys.stream().filter(key -> !key.equals("missing")).forEach(key -> rows.add(key.toUpperCase()));
+            return rows;
+        };
+    }
+
+    private String keyOf(final String value) {
+        return value.toLowerCase();
+    }
+}
@@ -0,0 +1,114 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Supplier;
+import de.henninglanghorst.functional.util.Either;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static de.henninglanghorst.functional.sql.DatabaseOperationFunctions.doInDatabase;
+import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.databaseQuery;
+import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.singleRowExtraction;
+import static de.henninglanghorst.functional.sql.DatabaseStatementFunctions.statement;
+import static de.henninglanghorst.functional.sql.DatabaseTransactionFunctions.withinTransaction;
+import static de.henninglanghorst.functional.sql.DatabaseUpdateFunctions.databaseUpdate;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests class {@link BulkLoader} with an in-memory H2 database.
+ *
+ * @author Henning Langhorst
+ */
+public class BulkLoaderTest {
+
+    private final String url = "jdbc:h2:mem:bulk-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    private final Supplier<Connection> connectionFactory = () -> DriverManager.getConnection(url, "sa", "");
+
+    @Before
+    public void setUp() {
+        doInDatabase(connectionFactory, databaseUpdate(statement("create table Numbers (n integer primary key)")));
+    }
+
+    @Test
+    public void loadShouldInsertAllRowsAndReportProgressAfterEveryCommit() {
+        // given
+        final List<Long> committedRows = new ArrayList<>();
+        final List<String> updates = new ArrayList<>();
+        final BulkLoader<Integer> bulkLoader = BulkLoader.<Integer>builder(
+                "insert into Numbers values (?)", (n, parameters) -> parameters.setInt(n))
+                .batchSize(4)
+                .commitInterval(10)
+                .progressListener(progress -> committedRows.add(progress.getCommittedRows()))
+                .updateListener(updates::add)
+                .build();
+
+        // when
+        final Either<BulkLoadProgress, SQLException> result =
+                doInDatabase(connectionFactory, bulkLoader.load(IntStream.rangeClosed(1, 25).boxed()));
+
+        // then
+        assertThat(result.left().map(BulkLoadProgress::getLoadedRows)).contains(25L);
+        assertThat(committedRows).containsExactly(10L, 20L, 25L);
+        assertThat(updates).hasSize(3);
+        assertThat(countRows()).isEqualTo(25);
+    }
+
+    @Test
+    public void loadShouldKeepCommittedRowsOnFailureAndResumeAtStartOffset() {
+        // given
+        final BulkLoader<Integer> failingLoader = BulkLoader.<Integer>builder(
+                "insert into Numbers values (?)", (n, parameters) -> {
+                    if (n == 15) {
+                        throw new SQLException("Invalid row");
+                    }
+                    parameters.setInt(n);
+                })
+                .commitInterval(10)
+                .build();
+
+        // when
+        final Either<BulkLoadProgress, SQLException> failure =
+                doInDatabase(connectionFactory, failingLoader.load(IntStream.rangeClosed(1, 25).boxed()));
+        final long committedRows = ((BulkLoadException) failure.right().get()).getCommittedRows();
+        final Either<BulkLoadProgress, SQLException> resumed = doInDatabase(connectionFactory,
+                BulkLoader.<Integer>builder("insert into Numbers values (?)", (n, parameters) -> parameters.setInt(n))
+                        .startOffset(committedRows)
+                        .build()
+                        .load(IntStream.rangeClosed(1, 25).boxed()));
+
+        // then
+        assertThat(committedRows).isEqualTo(10);
+        assertThat(resumed.left().map(BulkLoadProgress::getLoadedRows)).contains(15L);
+        assertThat(countRows()).isEqualTo(25);
+    }
+
+    @Test
+    public void loadShouldBeRejectedWithinTransaction() {
+        // given
+        final BulkLoader<Integer> bulkLoader = BulkLoader.<Integer>builder(
+                "insert into Numbers values (?)", (n, parameters) -> parameters.setInt(n))
+                .commitInterval(10)
+                .build();
+
+        // when
+        final Either<BulkLoadProgress, SQLException> result = doInDatabase(connectionFactory,
+                withinTransaction(bulkLoader.load(IntStream.rangeClosed(1, 25).boxed())));
+
+        // then
+        assertThat(result.right().map(Object::getClass)).contains(SQLException.class);
+        assertThat(countRows()).isEqualTo(0);
+    }
+
+    private int countRows() {
+        return doInDatabase(connectionFactory,
+                databaseQuery(statement("select count(*) from Numbers"), singleRowExtraction(rs -> rs.getInt(1))))
+                .left().get();
+    }
+}
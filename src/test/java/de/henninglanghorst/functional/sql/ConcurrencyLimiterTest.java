@@ -0,0 +1,169 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.util.Either;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests class {@link ConcurrencyLimiter}.
+ *
+ * @author Henning Langhorst
+ */
+public class ConcurrencyLimiterTest {
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private Connection connection;
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @After
+    public void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    public void doInDatabaseShouldRejectOperationsBeyondLimit() throws Exception {
+        // given
+        final ConcurrencyLimiter limiter = ConcurrencyLimiter.builder(() -> connection).initialLimit(1).build();
+        final CompletableFuture<Either<String, SQLException>> running = runBlocked(limiter, null);
+
+        // when
+        final Either<String, SQLException> result = limiter.doInDatabase(c -> "DB result");
+
+        // then
+        assertThat(result.right().map(Object::getClass)).contains(SQLTransientException.class);
+        assertThat(limiter.getRejectedCount()).isEqualTo(1);
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo(Either.left("DB result"));
+        assertThat(limiter.getInFlightCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void doInDatabaseShouldIncreaseLimitAfterFastOperations() throws Exception {
+        // given
+        final ConcurrencyLimiter limiter = ConcurrencyLimiter.builder(() -> connection).initialLimit(1).build();
+
+        // when
+        final Either<String, SQLException> result = limiter.doInDatabase(c -> "DB result");
+
+        // then
+        assertThat(result).isEqualTo(Either.left("DB result"));
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    public void doInDatabaseShouldDecreaseLimitAfterSlowOperation() throws Exception {
+        // given
+        final ConcurrencyLimiter limiter = ConcurrencyLimiter.builder(() -> connection)
+                .initialLimit(10)
+                .latencyThreshold(Duration.ofMillis(1))
+                .backoffRatio(0.5)
+                .build();
+
+        // when
+        limiter.doInDatabase(c -> {
+            final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20);
+            while (System.nanoTime() < end) {
+                LockSupport.parkNanos(end - System.nanoTime());
+            }
+            return "DB result";
+        });
+
+        // then
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    public void doInDatabaseShouldDecreaseLimitOnceForConcurrentSlowOperations() throws Exception {
+        // given
+        final ConcurrencyLimiter limiter = ConcurrencyLimiter.builder(() -> connection)
+                .initialLimit(10)
+                .latencyThreshold(Duration.ofMillis(1))
+                .backoffRatio(0.5)
+                .build();
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        final CountDownLatch allStarted = new CountDownLatch(3);
+        final List<CompletableFuture<Either<String, SQLException>>> running = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            running.add(CompletableFuture.supplyAsync(() -> limiter.doInDatabase(c -> {
+                allStarted.countDown();
+                awaitRelease();
+                return "DB result";
+            }), executor));
+        }
+        assertThat(allStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        TimeUnit.MILLISECONDS.sleep(20);
+
+        // when
+        release.countDown();
+        for (CompletableFuture<Either<String, SQLException>> operation : running) {
+            operation.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    public void doInDatabaseShouldLimitPartitionToItsShare() throws Exception {
+        // given
+        final ConcurrencyLimiter limiter = ConcurrencyLimiter.builder(() -> connection)
+                .initialLimit(10)
+                .partition("batch", 0.1)
+                .build();
+        runBlocked(limiter, "batch");
+
+        // when
+        final Either<String, SQLException> batchResult = limiter.doInDatabase("batch", c -> "DB result");
+        final Either<String, SQLException> interactiveResult = limiter.doInDatabase(c -> "DB result");
+
+        // then
+        assertThat(batchResult.right().map(Object::getClass)).contains(SQLTransientException.class);
+        assertThat(interactiveResult).isEqualTo(Either.left("DB result"));
+    }
+
+    private CompletableFuture<Either<String, SQLException>> runBlocked(final ConcurrencyLimiter limiter,
+                                                                       final String tag) throws Exception {
+        final CompletableFuture<Either<String, SQLException>> running =
+                CompletableFuture.supplyAsync(() -> limiter.doInDatabase(tag, c -> {
+                    started.countDown();
+                    awaitRelease();
+                    return "DB result";
+                }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        return running;
+    }
+
+    private boolean awaitRelease() {
+        try {
+            return release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.util.Either;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static de.henninglanghorst.functional.sql.DatabaseOperationFunctions.doInDatabase;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests class {@link ConnectionPool}.
+ *
+ * @author Henning Langhorst
+ */
+public class ConnectionPoolTest {
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private Connection firstConnection;
+
+    @Mock
+    private Connection secondConnection;
+
+    private ConnectionPool connectionPool;
+
+    @After
+    public void tearDown() {
+        connectionPool.close();
+    }
+
+    @Test
+    public void closingPooledConnectionShouldReturnItToPoolForReuse() throws Exception {
+        // given
+        given(firstConnection.getAutoCommit()).willReturn(true);
+        connectionPool = ConnectionPool.builder(() -> firstConnection).maximumSize(1).build();
+
+        // when
+        connectionPool.get().close();
+        final Connection connection = connectionPool.get();
+
+        // then
+        connection.createStatement();
+        verify(firstConnection).createStatement();
+        verify(firstConnection, never()).close();
+        assertThat(connectionPool.getTotalConnections()).isEqualTo(1);
+    }
+
+    @Test
+    public void doInDatabaseShouldReturnExceptionWhenNoConnectionBecomesAvailableWithinAcquireTimeout() throws Exception {
+        // given
+        connectionPool = ConnectionPool.builder(() -> firstConnection)
+                .maximumSize(1)
+                .acquireTimeout(Duration.ofMillis(50))
+                .build();
+        final Connection borrowedConnection = connectionPool.get();
+
+        // when
+        final Either<String, SQLException> result = doInDatabase(connectionPool, c -> "DB result");
+
+        // then
+        assertThat(result.right().map(Object::getClass)).contains(SQLTransientConnectionException.class);
+        borrowedConnection.close();
+    }
+
+    @Test
+    public void invalidIdleConnectionShouldBeReplaced() throws Exception {
+        // given
+        given(firstConnection.getAutoCommit()).willReturn(true);
+        given(firstConnection.isValid(1)).willReturn(false);
+        final Connection[] physicalConnections = {firstConnection, secondConnection};
+        final int[] created = {0};
+        connectionPool = ConnectionPool.builder(() -> physicalConnections[created[0]++])
+                .maximumSize(1)
+                .validationTimeout(Duration.ofSeconds(1))
+                .build();
+        connectionPool.get().close();
+        Thread.sleep(600);
+
+        // when
+        connectionPool.get().createStatement();
+
+        // then
+        verify(firstConnection).close();
+        verify(secondConnection).createStatement();
+    }
+
+    @Test(expected = SQLException.class)
+    public void closedPooledConnectionShouldRejectFurtherUse() throws Exception {
+        // given
+        given(firstConnection.getAutoCommit()).willReturn(true);
+        connectionPool = ConnectionPool.builder(() -> firstConnection).build();
+        final Connection connection = connectionPool.get();
+        connection.close();
+
+        // when
+        connection.createStatement();
+    }
+}
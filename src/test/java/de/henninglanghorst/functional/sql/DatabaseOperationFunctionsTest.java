@@ -12,9 +12,24 @@ import org.mockito.junit.MockitoRule;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static de.henninglanghorst.functional.sql.DatabaseOperationFunctions.doInDatabase;
+import static de.henninglanghorst.functional.sql.DatabaseOperationFunctions.doInDatabasePartitioned;
+import static de.henninglanghorst.functional.sql.DatabaseOperationFunctions.streamInDatabase;
+import static de.henninglanghorst.functional.sql.KeyRange.keyRange;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -93,4 +108,198 @@ public class DatabaseOperationFunctionsTest {
         verify(connection).close();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void streamInDatabaseShouldCloseConnectionWhenStreamIsConsumed() throws Exception {
+        // given
+        final Supplier<Connection> connectionSupplier = () -> connection;
+        final Function<Connection, Stream<String>> connectionFunction = c -> Stream.of("a", "b");
+
+        // when
+        final Either<Stream<String>, SQLException> result = streamInDatabase(connectionSupplier, connectionFunction);
+
+        // then
+        verify(connection, never()).close();
+        assertThat(result.left().get().collect(toList())).containsExactly("a", "b");
+        verify(connection).close();
+    }
+
+    @Test
+    public void streamInDatabaseShouldCloseConnectionWhenStreamIsClosed() throws Exception {
+        // given
+        final Supplier<Connection> connectionSupplier = () -> connection;
+        final Function<Connection, Stream<String>> connectionFunction = c -> Stream.of("a", "b");
+
+        // when
+        streamInDatabase(connectionSupplier, connectionFunction).left().get().close();
+
+        // then
+        verify(connection).close();
+    }
+
+    @Test
+    public void streamInDatabaseShouldCloseConnectionAndReturnThrownSqlExceptionInEitherObject() throws Exception {
+        // given
+        final Supplier<Connection> connectionSupplier = () -> connection;
+        final SQLException exceptionToBeThrown = new SQLException("Test");
+        final Function<Connection, Stream<String>> connectionFunction = c -> {
+            throw exceptionToBeThrown;
+        };
+
+        // when
+        final Either<Stream<String>, SQLException> result = streamInDatabase(connectionSupplier, connectionFunction);
+
+        // then
+        assertThat(result).isEqualTo(Either.right(exceptionToBeThrown));
+        verify(connection).close();
+    }
+
+    @Test
+    public void doInDatabasePartitionedShouldMergePartitionResultsInKeyOrder() {
+        // given
+        final ForkJoinPool pool = new ForkJoinPool(4);
+
+        // when
+        final Either<List<Long>, SQLException> result = doInDatabasePartitioned(
+                () -> connection, keyRange(1, 10), 4, range -> c -> asList(range.getFrom(), range.getTo()), pool);
+
+        // then
+        assertThat(result).isEqualTo(Either.left(asList(1L, 3L, 4L, 6L, 7L, 8L, 9L, 10L)));
+        pool.shutdown();
+    }
+
+    @Test
+    public void doInDatabasePartitionedShouldReturnExceptionOfFailedPartition() {
+        // given
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        final SQLException exceptionToBeThrown = new SQLException("Partition failed");
+
+        // when
+        final Either<List<Long>, SQLException> result = doInDatabasePartitioned(
+                () -> connection, keyRange(1, 100), 10, range -> c -> {
+                    if (range.getFrom() == 41) {
+                        throw exceptionToBeThrown;
+                    }
+                    return asList(range.getFrom(), range.getTo());
+                }, pool);
+
+        // then
+        assertThat(result).isEqualTo(Either.right(exceptionToBeThrown));
+        pool.shutdown();
+    }
+
+    @Test
+    public void doInDatabasePartitionedShouldCancelRunningPartitionsBeforeReturningFailure() throws Exception {
+        // given
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        final SQLException exceptionToBeThrown = new SQLException("Partition failed");
+        final CountDownLatch executing = new CountDownLatch(1);
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        given(connection.prepareStatement("select 1")).willReturn(preparedStatement);
+        willAnswer(invocation -> {
+            cancelled.countDown();
+            return null;
+        }).given(preparedStatement).cancel();
+        given(preparedStatement.execute()).willAnswer(invocation -> {
+            executing.countDown();
+            cancelled.await(5, TimeUnit.SECONDS);
+            throw new SQLException("Statement was canceled");
+        });
+
+        // when
+        final Either<List<Long>, SQLException> result = doInDatabasePartitioned(
+                () -> connection, keyRange(1, 2), 2, range -> c -> {
+                    if (range.getFrom() == 2) {
+                        await(executing);
+                        throw exceptionToBeThrown;
+                    }
+                    c.prepareStatement("select 1").execute();
+                    return asList(range.getFrom(), range.getTo());
+                }, pool);
+
+        // then
+        assertThat(result).isEqualTo(Either.right(exceptionToBeThrown));
+        assertThat(cancelled.getCount()).isEqualTo(0);
+        verify(connection, times(2)).close();
+        pool.shutdown();
+    }
+
+    @Test
+    public void doInDatabaseWithDeadlineShouldSetQueryTimeoutAndCancelStatementAfterDeadline() throws Exception {
+        // given
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        given(connection.prepareStatement("select 1")).willReturn(preparedStatement);
+        willAnswer(invocation -> {
+            cancelled.countDown();
+            return null;
+        }).given(preparedStatement).cancel();
+        given(preparedStatement.execute()).willAnswer(invocation -> {
+            cancelled.await(5, TimeUnit.SECONDS);
+            throw new SQLException("Statement was canceled");
+        });
+
+        // when
+        final Either<Boolean, SQLException> result = doInDatabase(
+                () -> connection, c -> c.prepareStatement("select 1").execute(), Deadline.after(Duration.ofMillis(50)));
+
+        // then
+        verify(preparedStatement).setQueryTimeout(1);
+        verify(preparedStatement).cancel();
+        assertThat(result.right().map(Object::getClass)).contains(DeadlineExceededException.class);
+        verify(connection).close();
+    }
+
+    @Test
+    public void doInDatabaseWithDeadlineShouldKeepUnrelatedExceptionAfterDeadline() throws Exception {
+        // given
+        final SQLException exceptionToBeThrown = new SQLException("Connection broken", "08006");
+        given(connection.getAutoCommit()).willAnswer(invocation -> {
+            TimeUnit.MILLISECONDS.sleep(100);
+            throw exceptionToBeThrown;
+        });
+
+        // when
+        final Either<Boolean, SQLException> result =
+                doInDatabase(() -> connection, Connection::getAutoCommit, Deadline.after(Duration.ofMillis(50)));
+
+        // then
+        assertThat(result).isEqualTo(Either.right(exceptionToBeThrown));
+    }
+
+    @Test
+    public void doInDatabaseWithExpiredDeadlineShouldNotApplyFunction() throws Exception {
+        // given
+        final Deadline deadline = Deadline.after(Duration.ZERO);
+
+        // when
+        final Either<PreparedStatement, SQLException> result =
+                doInDatabase(() -> connection, c -> c.prepareStatement("select 1"), deadline);
+
+        // then
+        verify(connection, never()).prepareStatement("select 1");
+        assertThat(result.right().map(Object::getClass)).contains(DeadlineExceededException.class);
+    }
+
+    @Test
+    public void doInDatabaseWithDeadlineShouldReturnResultWithinDeadline() throws Exception {
+        // given
+        given(connection.prepareStatement("select 1")).willReturn(preparedStatement);
+        given(preparedStatement.execute()).willReturn(true);
+
+        // when
+        final Either<Boolean, SQLException> result = doInDatabase(
+                () -> connection, c -> c.prepareStatement("select 1").execute(), Deadline.after(Duration.ofMinutes(1)));
+
+        // then
+        assertThat(result).isEqualTo(Either.left(true));
+        verify(preparedStatement).setQueryTimeout(60);
+        verify(preparedStatement, never()).cancel();
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Supplier;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static de.henninglanghorst.functional.sql.DatabaseOperationFunctions.doInDatabase;
+import static de.henninglanghorst.functional.sql.DatabasePaginationFunctions.keysetPages;
+import static de.henninglanghorst.functional.sql.DatabaseStatementFunctions.statement;
+import static de.henninglanghorst.functional.sql.DatabaseUpdateFunctions.databaseUpdate;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests class {@link DatabasePaginationFunctions} with an in-memory H2 database.
+ *
+ * @author Henning Langhorst
+ */
+public class DatabasePaginationFunctionsTest {
+
+    private final String url = "jdbc:h2:mem:pagination-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final Supplier<Connection> connectionFactory = () -> {
+        connectionCount.incrementAndGet();
+        return DriverManager.getConnection(url, "sa", "");
+    };
+
+    @Before
+    public void setUp() {
+        doInDatabase(connectionFactory, databaseUpdate(statement("create table Numbers (n integer primary key)")));
+        IntStream.rangeClosed(1, 25).forEach(n ->
+                doInDatabase(connectionFactory, databaseUpdate(statement("insert into Numbers values (?)", 26 - n))));
+        connectionCount.set(0);
+    }
+
+    @Test
+    public void keysetPagesShouldReadAllRowsInKeyOrderWithOneConnectionPerPage() {
+        // when
+        final List<List<Integer>> pages =
+                keysetPages(connectionFactory, "Numbers", "n", rs -> rs.getInt("n"), n -> n, 10).collect(toList());
+
+        // then
+        assertThat(pages).hasSize(3);
+        assertThat(pages.get(0)).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        assertThat(pages.get(2)).containsExactly(21, 22, 23, 24, 25);
+        assertThat(connectionCount.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void keysetPagesShouldReadPagesOnlyWhenConsumed() {
+        // when
+        final List<Integer> firstPage =
+                keysetPages(connectionFactory, "Numbers", "n", rs -> rs.getInt("n"), n -> n, 5).findFirst().get();
+
+        // then
+        assertThat(firstPage).containsExactly(1, 2, 3, 4, 5);
+        assertThat(connectionCount.get()).isEqualTo(1);
+    }
+
+    @Test(expected = UncheckedSQLException.class)
+    public void keysetPagesShouldThrowUncheckedSqlExceptionIfPageCannotBeRead() {
+        // when
+        keysetPages(connectionFactory, "Missing", "n", rs -> rs.getInt("n"), n -> n, 5).count();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void keysetPagesShouldFailIfKeyOfLastRowIsNull() {
+        // when
+        keysetPages(connectionFactory, "Numbers", "n", rs -> rs.getInt("n"), n -> (Integer) null, 10).count();
+    }
+}
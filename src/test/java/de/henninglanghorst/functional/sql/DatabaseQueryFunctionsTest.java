@@ -0,0 +1,185 @@
+package de.henninglanghorst.functional.sql;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.doubleColumnExtraction;
+import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.longColumnExtraction;
+import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.optionalRowExtraction;
+import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.rowCallbackExtraction;
+import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.singleRowExtraction;
+import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.streamingQuery;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for functions in {@link DatabaseQueryFunctions}.
+ *
+ * @author Henning Langhorst
+ */
+public class DatabaseQueryFunctionsTest {
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private ResultSet resultSet;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement preparedStatement;
+
+    @Test
+    public void rowCallbackExtractionShouldPassEveryMappedRowToConsumerAndCountRows() throws Exception {
+        // given
+        given(resultSet.next()).willReturn(true, true, false);
+        given(resultSet.getString(1)).willReturn("a", "b");
+        final List<String> consumedRows = new ArrayList<>();
+
+        // when
+        final ExtractionStatistics statistics =
+                rowCallbackExtraction(rs -> rs.getString(1), consumedRows::add).apply(resultSet);
+
+        // then
+        assertThat(consumedRows).containsExactly("a", "b");
+        assertThat(statistics.getRowCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void longColumnExtractionShouldGrowArrayAndReplaceNullValues() throws Exception {
+        // given
+        final Boolean[] hasNext = new Boolean[100];
+        Arrays.fill(hasNext, true);
+        given(resultSet.next()).willReturn(true, hasNext).willReturn(false);
+        given(resultSet.getLong(1)).willReturn(0L);
+        given(resultSet.wasNull()).willReturn(false, true).willReturn(false);
+
+        // when
+        final long[] values = longColumnExtraction(1, -1L).apply(resultSet);
+
+        // then
+        assertThat(values).hasSize(101);
+        assertThat(values[0]).isEqualTo(0L);
+        assertThat(values[1]).isEqualTo(-1L);
+    }
+
+    @Test(expected = SQLException.class)
+    public void doubleColumnExtractionShouldFailOnNullValueWithoutReplacement() throws Exception {
+        // given
+        given(resultSet.next()).willReturn(true, false);
+        given(resultSet.wasNull()).willReturn(true);
+
+        // when
+        doubleColumnExtraction(1).apply(resultSet);
+    }
+
+    @Test
+    public void optionalRowExtractionShouldReturnEmptyResultIfThereIsNoRow() throws Exception {
+        // given
+        given(resultSet.next()).willReturn(false);
+
+        // when
+        final Optional<String> row = optionalRowExtraction(rs -> rs.getString(1)).apply(resultSet);
+
+        // then
+        assertThat(row).isEmpty();
+    }
+
+    @Test(expected = TooManyRowsException.class)
+    public void optionalRowExtractionShouldFailOnMoreThanOneRow() throws Exception {
+        // given
+        given(resultSet.next()).willReturn(true, true, false);
+
+        // when
+        optionalRowExtraction(rs -> rs.getString(1)).apply(resultSet);
+    }
+
+    @Test
+    public void singleRowExtractionShouldFailWithoutStackTraceIfThereIsNoRow() throws Exception {
+        // given
+        given(resultSet.next()).willReturn(false);
+
+        try {
+            // when
+            singleRowExtraction(rs -> rs.getString(1)).apply(resultSet);
+            fail("NoDataFoundException expected");
+        } catch (NoDataFoundException e) {
+            // then
+            assertThat(e.getSQLState()).isEqualTo(NoDataFoundException.SQL_STATE);
+            assertThat(e.getStackTrace()).isEmpty();
+        }
+    }
+
+    @Test
+    public void streamingQueryShouldCloseStatementAndResultSetWhenAllRowsAreConsumed() throws Exception {
+        // given
+        given(preparedStatement.executeQuery()).willReturn(resultSet);
+        given(resultSet.next()).willReturn(true, true, false);
+        given(resultSet.getString(1)).willReturn("a", "b");
+
+        // when
+        final List<String> rows = streamingQuery(c -> preparedStatement, rs -> rs.getString(1), 100)
+                .apply(connection)
+                .collect(toList());
+
+        // then
+        assertThat(rows).containsExactly("a", "b");
+        verify(resultSet).close();
+        verify(preparedStatement).close();
+    }
+
+    @Test
+    public void streamingQueryShouldCloseStatementAndResultSetWhenStreamIsClosedEarly() throws Exception {
+        // given
+        given(preparedStatement.executeQuery()).willReturn(resultSet);
+        given(resultSet.next()).willReturn(true);
+        given(resultSet.getString(1)).willReturn("a");
+        final Stream<String> stream =
+                streamingQuery(c -> preparedStatement, rs -> rs.getString(1), 100).apply(connection);
+
+        // when
+        final Optional<String> firstRow = stream.findFirst();
+        verify(preparedStatement, never()).close();
+        stream.close();
+
+        // then
+        assertThat(firstRow).contains("a");
+        verify(resultSet).close();
+        verify(preparedStatement).close();
+    }
+
+    @Test
+    public void streamingQueryShouldApplyFetchSizeBeforeExecutingQuery() throws Exception {
+        // given
+        given(preparedStatement.executeQuery()).willReturn(resultSet);
+
+        // when
+        streamingQuery(c -> preparedStatement, rs -> rs.getString(1), 250).apply(connection).close();
+
+        // then
+        final InOrder inOrder = inOrder(preparedStatement);
+        inOrder.verify(preparedStatement).setFetchSize(250);
+        inOrder.verify(preparedStatement).executeQuery();
+    }
+}
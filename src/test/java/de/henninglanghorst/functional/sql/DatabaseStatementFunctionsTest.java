@@ -9,8 +9,11 @@ import org.mockito.junit.MockitoRule;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.List;
 
 import static de.henninglanghorst.functional.sql.DatabaseStatementFunctions.statement;
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.verify;
@@ -55,4 +58,65 @@ public class DatabaseStatementFunctionsTest {
         assertThat(stmt).isSameAs(preparedStatement);
         verify(stmt).setObject(1, stringParam);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void statementShouldKeepParametersWhenCallersArrayIsModified() throws Exception {
+        // given
+        final String sql = "select 1 from dual where name = ?";
+        final Object[] parameters = {"SomeName"};
+        given(connection.prepareStatement(sql)).willReturn(preparedStatement);
+        final ParameterizedStatement statementFunction = statement(sql, parameters);
+        // when
+        parameters[0] = "OtherName";
+        // then
+        statementFunction.apply(connection);
+        verify(preparedStatement).setObject(1, "SomeName");
+        assertThat(statementFunction.getParameters()).containsExactly("SomeName");
+    }
+
+    @Test
+    public void statementShouldReturnFunctionSettingParametersWithTypedBinder() throws Exception {
+        // given
+        final String sql = "select 1 from dual where id = ? and name = ? and birthday = ?";
+        given(connection.prepareStatement(sql)).willReturn(preparedStatement);
+        // when
+        final ParameterizedStatement statementFunction =
+                statement(sql, parameters -> parameters.setInt(42).setString("SomeName").setDate(null));
+        // then
+        final PreparedStatement stmt = statementFunction.apply(connection);
+        assertThat(stmt).isSameAs(preparedStatement);
+        verify(stmt).setInt(1, 42);
+        verify(stmt).setString(2, "SomeName");
+        verify(stmt).setNull(3, Types.DATE);
+        assertThat(statementFunction.getParameters()).containsExactly(42, "SomeName", null);
+    }
+
+    @Test
+    public void multiRowInsertShouldSplitRowsIntoChunksRespectingMaximumParameters() throws Exception {
+        // given
+        final MultiRowStatements<Integer> insertNumbers = DatabaseStatementFunctions.<Integer>multiRowInsert(
+                "Numbers", (n, parameters) -> parameters.setInt(n).setInt(n * n), "n", "square")
+                .maxParameters(5);
+        // when
+        final List<ParameterizedStatement> statements = insertNumbers.statements(asList(1, 2, 3, 4, 5));
+        // then
+        assertThat(statements).hasSize(3);
+        assertThat(statements.get(0).getSql()).isEqualTo("insert into Numbers (n, square) values (?, ?), (?, ?)");
+        assertThat(statements.get(1).getSql()).isSameAs(statements.get(0).getSql());
+        assertThat(statements.get(2).getSql()).isEqualTo("insert into Numbers (n, square) values (?, ?)");
+        assertThat(statements.get(1).getParameters()).containsExactly(3, 9, 4, 16);
+    }
+
+    @Test
+    public void multiRowMergeShouldCreateMergeStatementWithKeyColumns() throws Exception {
+        // when
+        final List<ParameterizedStatement> statements =
+                DatabaseStatementFunctions.<String>multiRowMerge("Names", new String[]{"id"},
+                        (name, parameters) -> parameters.setInt(name.length()).setString(name), "id", "name")
+                        .statements(asList("a", "bb"));
+        // then
+        assertThat(statements).hasSize(1);
+        assertThat(statements.get(0).getSql())
+                .isEqualTo("merge into Names (id, name) key (id) values (?, ?), (?, ?)");
+    }
+}
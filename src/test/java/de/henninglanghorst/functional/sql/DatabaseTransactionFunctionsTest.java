@@ -0,0 +1,136 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Function;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static de.henninglanghorst.functional.sql.DatabaseTransactionFunctions.withinTransaction;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for functions in {@link DatabaseTransactionFunctions}.
+ *
+ * @author Henning Langhorst
+ */
+public class DatabaseTransactionFunctionsTest {
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private Connection connection;
+
+    private final RetryPolicy retryPolicy = RetryPolicy.builder()
+            .maxAttempts(3)
+            .initialBackoff(Duration.ZERO)
+            .build();
+
+    @Test
+    public void withinTransactionShouldRestoreAutoCommitIfOperationFails() throws Exception {
+        // given
+        given(connection.getAutoCommit()).willReturn(true);
+        final Function<Connection, String> failingOperation = c -> {
+            throw new SQLException("Test");
+        };
+
+        // when
+        try {
+            withinTransaction(failingOperation).apply(connection);
+        } catch (SQLException e) {
+            // expected
+        }
+
+        // then
+        verify(connection).rollback();
+        verify(connection).setAutoCommit(true);
+    }
+
+    @Test
+    public void withinTransactionWithRetryPolicyShouldRetryDeadlockedTransaction() throws Exception {
+        // given
+        final AtomicInteger attempts = new AtomicInteger();
+        final Function<Connection, String> operation = c -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new SQLException("Deadlock detected", "40001");
+            }
+            return "DB result";
+        };
+
+        // when
+        final String result = withinTransaction(operation, retryPolicy).apply(connection);
+
+        // then
+        assertThat(result).isEqualTo("DB result");
+        verify(connection, times(2)).rollback();
+        verify(connection).commit();
+        assertThat(retryPolicy.getRetryCount()).isEqualTo(2);
+        assertThat(retryPolicy.getRecoveredCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void withinTransactionWithRetryPolicyShouldNotRetryOtherExceptions() throws Exception {
+        // given
+        final AtomicInteger attempts = new AtomicInteger();
+        final Function<Connection, String> operation = c -> {
+            attempts.incrementAndGet();
+            throw new SQLException("Unique constraint violated", "23505");
+        };
+
+        // when
+        try {
+            withinTransaction(operation, retryPolicy).apply(connection);
+        } catch (SQLException e) {
+            // expected
+        }
+
+        // then
+        assertThat(attempts.get()).isEqualTo(1);
+        assertThat(retryPolicy.getRetryCount()).isZero();
+    }
+
+    @Test
+    public void isTransactionConflictShouldOnlyAcceptSerializationFailuresDeadlocksAndKnownVendorErrors() {
+        // then
+        assertThat(RetryPolicy.isTransactionConflict(new SQLException("Deadlock detected", "40P01"))).isTrue();
+        assertThat(RetryPolicy.isTransactionConflict(new SQLException("ORA-00060", "61000", 60))).isTrue();
+        assertThat(RetryPolicy.isTransactionConflict(new SQLException("Integrity constraint", "40002"))).isFalse();
+        assertThat(RetryPolicy.isTransactionConflict(new SQLException("Completion unknown", "40003"))).isFalse();
+        assertThat(RetryPolicy.isTransactionConflict(new SQLException("Other vendor error", "42000", 60))).isFalse();
+    }
+
+    @Test
+    public void backoffShouldBeCappedAtMaximumInsteadOfOverflowing() {
+        // given
+        final long maxBackoffNanos = 1L << 50;
+        final RetryPolicy policy = RetryPolicy.builder()
+                .initialBackoff(Duration.ofNanos(1L << 40))
+                .maxBackoff(Duration.ofNanos(maxBackoffNanos))
+                .build();
+
+        // when
+        long largestBackoff = 0;
+        for (int i = 0; i < 20; i++) {
+            largestBackoff = Math.max(largestBackoff, policy.backoffNanos(31));
+        }
+
+        // then
+        assertThat(largestBackoff).isGreaterThan(1L << 40).isLessThanOrEqualTo(maxBackoffNanos);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void buildShouldRejectMaximumBackoffOverflowingRandomBackoff() {
+        // when
+        RetryPolicy.builder().maxBackoff(Duration.ofNanos(Long.MAX_VALUE)).build();
+    }
+}
@@ -0,0 +1,90 @@
+package de.henninglanghorst.functional.sql;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+
+import static de.henninglanghorst.functional.sql.DatabaseStatementFunctions.statement;
+import static de.henninglanghorst.functional.sql.DatabaseUpdateFunctions.batchedDatabaseUpdates;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for functions in {@link DatabaseUpdateFunctions}.
+ *
+ * @author Henning Langhorst
+ */
+public class DatabaseUpdateFunctionsTest {
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement insertStatement;
+
+    @Mock
+    private PreparedStatement updateStatement;
+
+    @Test
+    public void batchedDatabaseUpdatesShouldFlushBatchesAndReturnUpdateCountsInOriginalOrder() throws Exception {
+        // given
+        given(connection.prepareStatement("insert")).willReturn(insertStatement);
+        given(connection.prepareStatement("update")).willReturn(updateStatement);
+        given(insertStatement.executeBatch()).willReturn(new int[]{1, 1}, new int[]{1});
+        given(updateStatement.executeBatch()).willReturn(new int[]{3});
+
+        // when
+        final int[] result = batchedDatabaseUpdates(
+                Arrays.asList(
+                        statement("insert", 1),
+                        statement("insert", 2),
+                        statement("insert", 3),
+                        statement("update", 4)),
+                2).apply(connection);
+
+        // then
+        assertThat(result).containsExactly(1, 1, 1, 3);
+        final InOrder inOrder = inOrder(insertStatement, updateStatement);
+        inOrder.verify(insertStatement).setObject(1, 1);
+        inOrder.verify(insertStatement).setObject(1, 2);
+        inOrder.verify(insertStatement).executeBatch();
+        inOrder.verify(insertStatement).setObject(1, 3);
+        inOrder.verify(insertStatement).executeBatch();
+        inOrder.verify(insertStatement).close();
+        inOrder.verify(updateStatement).setObject(1, 4);
+        inOrder.verify(updateStatement).executeBatch();
+        inOrder.verify(updateStatement).close();
+        verify(insertStatement, times(3)).addBatch();
+    }
+
+    @Test
+    public void batchedDatabaseUpdatesShouldPrepareStatementAgainWhenSqlTextRecurs() throws Exception {
+        // given
+        given(connection.prepareStatement("insert")).willReturn(insertStatement);
+        given(connection.prepareStatement("update")).willReturn(updateStatement);
+        given(insertStatement.executeBatch()).willReturn(new int[]{1}, new int[]{1});
+        given(updateStatement.executeBatch()).willReturn(new int[]{2});
+
+        // when
+        final int[] result = batchedDatabaseUpdates(
+                Arrays.asList(statement("insert", 1), statement("update", 2), statement("insert", 3)),
+                100).apply(connection);
+
+        // then
+        assertThat(result).containsExactly(1, 2, 1);
+        verify(connection, times(2)).prepareStatement("insert");
+    }
+}
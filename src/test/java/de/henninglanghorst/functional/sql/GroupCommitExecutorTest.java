@@ -0,0 +1,135 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Supplier;
+import de.henninglanghorst.functional.util.Either;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static de.henninglanghorst.functional.sql.DatabaseOperationFunctions.doInDatabase;
+import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.databaseQuery;
+import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.singleRowExtraction;
+import static de.henninglanghorst.functional.sql.DatabaseStatementFunctions.statement;
+import static de.henninglanghorst.functional.sql.DatabaseTransactionFunctions.withinTransaction;
+import static de.henninglanghorst.functional.sql.DatabaseUpdateFunctions.databaseUpdate;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests class {@link GroupCommitExecutor} with an in-memory H2 database.
+ *
+ * @author Henning Langhorst
+ */
+public class GroupCommitExecutorTest {
+
+    private final String url = "jdbc:h2:mem:group-commit-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    private final Supplier<Connection> connectionFactory = () -> DriverManager.getConnection(url, "sa", "");
+
+    private GroupCommitExecutor executor;
+
+    @Before
+    public void setUp() {
+        doInDatabase(connectionFactory, databaseUpdate(statement("create table Numbers (n integer primary key)")));
+    }
+
+    @After
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    public void submitShouldCommitUpdatesInSharedTransactions() throws Exception {
+        // given
+        executor = GroupCommitExecutor.builder(connectionFactory)
+                .maxGroupSize(10)
+                .maxWait(Duration.ofMillis(100))
+                .build();
+
+        // when
+        final List<CompletableFuture<Either<Integer, SQLException>>> results = new ArrayList<>();
+        for (int n = 1; n <= 20; n++) {
+            results.add(executor.submit(databaseUpdate(statement("insert into Numbers values (?)", n))));
+        }
+
+        // then
+        for (CompletableFuture<Either<Integer, SQLException>> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(Either.left(1));
+        }
+        assertThat(executor.getGroupCount()).isLessThan(20);
+    }
+
+    @Test
+    public void submitShouldRunUpdatesIndividuallyIfSharedTransactionFails() throws Exception {
+        // given
+        executor = GroupCommitExecutor.builder(connectionFactory)
+                .maxGroupSize(3)
+                .maxWait(Duration.ofSeconds(1))
+                .build();
+
+        // when
+        final CompletableFuture<Either<Integer, SQLException>> first =
+                executor.submit(databaseUpdate(statement("insert into Numbers values (?)", 1)));
+        final CompletableFuture<Either<Integer, SQLException>> duplicate =
+                executor.submit(databaseUpdate(statement("insert into Numbers values (?)", 1)));
+        final CompletableFuture<Either<Integer, SQLException>> third =
+                executor.submit(databaseUpdate(statement("insert into Numbers values (?)", 3)));
+
+        // then
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(Either.left(1));
+        assertThat(duplicate.get(5, TimeUnit.SECONDS).isRight()).isTrue();
+        assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo(Either.left(1));
+        assertThat(executor.getFallbackCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void submitShouldFailOnlyUpdateThrowingRuntimeException() throws Exception {
+        // given
+        executor = GroupCommitExecutor.builder(connectionFactory)
+                .maxGroupSize(2)
+                .maxWait(Duration.ofSeconds(1))
+                .build();
+
+        // when
+        final CompletableFuture<Either<Integer, SQLException>> failing = executor.submit(c -> {
+            throw new IllegalStateException("Update failed");
+        });
+        final CompletableFuture<Either<Integer, SQLException>> valid =
+                executor.submit(databaseUpdate(statement("insert into Numbers values (?)", 1)));
+
+        // then
+        assertThat(valid.get(5, TimeUnit.SECONDS)).isEqualTo(Either.left(1));
+        assertThat(failing.handle((value, throwable) -> throwable).get(5, TimeUnit.SECONDS))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(executor.getFallbackCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void submitShouldRejectUpdateWithinOwnTransaction() throws Exception {
+        // given
+        executor = GroupCommitExecutor.builder(connectionFactory)
+                .maxGroupSize(2)
+                .maxWait(Duration.ofSeconds(1))
+                .build();
+
+        // when
+        final CompletableFuture<Either<Integer, SQLException>> nested = executor.submit(
+                withinTransaction(databaseUpdate(statement("insert into Numbers values (?)", 1))));
+        final CompletableFuture<Either<Integer, SQLException>> valid =
+                executor.submit(databaseUpdate(statement("insert into Numbers values (?)", 2)));
+
+        // then
+        assertThat(nested.get(5, TimeUnit.SECONDS).isRight()).isTrue();
+        assertThat(valid.get(5, TimeUnit.SECONDS)).isEqualTo(Either.left(1));
+        assertThat(doInDatabase(connectionFactory, databaseQuery(statement("select count(*) from Numbers"),
+                singleRowExtraction(rs -> rs.getInt(1))))).isEqualTo(Either.left(1));
+    }
+}
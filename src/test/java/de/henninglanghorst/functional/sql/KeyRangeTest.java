@@ -0,0 +1,34 @@
+package de.henninglanghorst.functional.sql;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static de.henninglanghorst.functional.sql.KeyRange.keyRange;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests class {@link KeyRange}.
+ *
+ * @author Henning Langhorst
+ */
+public class KeyRangeTest {
+
+    @Test
+    public void splitShouldCreateAdjacentRangesOfNearlyEqualSize() {
+        // when
+        final List<KeyRange> ranges = keyRange(1, 10).split(3);
+
+        // then
+        assertThat(ranges).containsExactly(keyRange(1, 4), keyRange(5, 7), keyRange(8, 10));
+    }
+
+    @Test
+    public void splitShouldNotCreateEmptyRanges() {
+        // when
+        final List<KeyRange> ranges = keyRange(5, 6).split(4);
+
+        // then
+        assertThat(ranges).containsExactly(keyRange(5, 5), keyRange(6, 6));
+    }
+}
@@ -0,0 +1,179 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Function;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.singleRowExtraction;
+import static de.henninglanghorst.functional.sql.DatabaseStatementFunctions.statement;
+import static de.henninglanghorst.functional.sql.DatabaseTransactionFunctions.withinTransaction;
+import static de.henninglanghorst.functional.sql.DatabaseUpdateFunctions.databaseUpdate;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests class {@link QueryCache}.
+ *
+ * @author Henning Langhorst
+ */
+public class QueryCacheTest {
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement preparedStatement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private final QueryCache queryCache = QueryCache.builder().maximumSize(1).timeToLive(Duration.ofMinutes(1)).build();
+
+    @After
+    public void tearDown() {
+        queryCache.close();
+    }
+
+    @Test
+    public void cachedQueryShouldExecuteQueryOnlyOnceForSameSqlAndParameters() throws Exception {
+        // given
+        givenQueryReturning("Carl", "Carl");
+        final Function<Connection, String> query = queryCache.cachedQuery(
+                statement("select name from Person where id = ?", 1), singleRowExtraction(rs -> rs.getString(1)), "Person");
+
+        // when
+        final String first = query.apply(connection);
+        final String second = query.apply(connection);
+
+        // then
+        assertThat(first).isEqualTo("Carl");
+        assertThat(second).isEqualTo("Carl");
+        verify(preparedStatement, times(1)).executeQuery();
+        assertThat(queryCache.getHitCount()).isEqualTo(1);
+        assertThat(queryCache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void updateOfReadTableShouldInvalidateCachedResult() throws Exception {
+        // given
+        givenQueryReturning("Carl", "Lenny");
+        final Function<Connection, String> query = queryCache.cachedQuery(
+                statement("select name from Person where id = ?", 1), singleRowExtraction(rs -> rs.getString(1)), "Person");
+        query.apply(connection);
+
+        // when
+        databaseUpdate(statement("update PERSON set name = ? where id = ?", "Lenny", 1), queryCache)
+                .apply(connection);
+        final String result = query.apply(connection);
+
+        // then
+        assertThat(result).isEqualTo("Lenny");
+        assertThat(queryCache.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void updateOfOtherTableShouldKeepCachedResult() throws Exception {
+        // given
+        givenQueryReturning("Carl", "Lenny");
+        final Function<Connection, String> query = queryCache.cachedQuery(
+                statement("select name from Person where id = ?", 1), singleRowExtraction(rs -> rs.getString(1)), "Person");
+        query.apply(connection);
+
+        // when
+        databaseUpdate(statement("delete from Address where id = ?", 1), queryCache).apply(connection);
+        final String result = query.apply(connection);
+
+        // then
+        assertThat(result).isEqualTo("Carl");
+    }
+
+    @Test
+    public void commitOfTransactionShouldInvalidateResultCachedAfterUpdate() throws Exception {
+        // given
+        givenQueryReturning("Carl", "Lenny");
+        final Function<Connection, String> query = queryCache.cachedQuery(
+                statement("select name from Person where id = ?", 1), singleRowExtraction(rs -> rs.getString(1)), "Person");
+        final List<String> resultsBeforeCommit = new ArrayList<>();
+
+        // when
+        withinTransaction(c -> {
+            databaseUpdate(statement("update Person set name = ? where id = ?", "Lenny", 1), queryCache).apply(c);
+            resultsBeforeCommit.add(query.apply(connection));
+            return null;
+        }).apply(connection);
+        final String result = query.apply(connection);
+
+        // then
+        assertThat(resultsBeforeCommit).containsExactly("Carl");
+        assertThat(result).isEqualTo("Lenny");
+        verify(connection).commit();
+    }
+
+    @Test
+    public void rollbackOfTransactionShouldNotLeaveUncommittedResultInCache() throws Exception {
+        // given
+        givenQueryReturning("Lenny", "Carl");
+        final Function<Connection, String> query = queryCache.cachedQuery(
+                statement("select name from Person where id = ?", 1), singleRowExtraction(rs -> rs.getString(1)), "Person");
+
+        // when
+        try {
+            withinTransaction(c -> {
+                databaseUpdate(statement("update Person set name = ? where id = ?", "Lenny", 1), queryCache).apply(c);
+                query.apply(c);
+                throw new SQLException("Constraint violated");
+            }).apply(connection);
+            fail("SQLException expected");
+        } catch (SQLException e) {
+            // expected
+        }
+        final String result = query.apply(connection);
+
+        // then
+        verify(connection).rollback();
+        assertThat(result).isEqualTo("Carl");
+        assertThat(queryCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntryWhenMaximumSizeIsExceeded() throws Exception {
+        // given
+        givenQueryReturning("Carl", "Lenny");
+
+        // when
+        queryCache.cachedQuery(statement("select name from Person where id = ?", 1),
+                singleRowExtraction(rs -> rs.getString(1))).apply(connection);
+        queryCache.cachedQuery(statement("select name from Person where id = ?", 2),
+                singleRowExtraction(rs -> rs.getString(1))).apply(connection);
+
+        // then
+        assertThat(queryCache.size()).isEqualTo(1);
+        assertThat(queryCache.getEvictionCount()).isEqualTo(1);
+    }
+
+    private void givenQueryReturning(final String firstName, final String secondName) throws Exception {
+        given(connection.prepareStatement(anyString())).willReturn(preparedStatement);
+        given(preparedStatement.executeQuery()).willReturn(resultSet);
+        given(resultSet.next()).willReturn(true, false, true, false);
+        given(resultSet.getString(1)).willReturn(firstName, secondName);
+    }
+}
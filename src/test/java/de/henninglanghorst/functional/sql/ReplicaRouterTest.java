@@ -0,0 +1,114 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.sql.function.Function;
+import de.henninglanghorst.functional.sql.function.Supplier;
+import de.henninglanghorst.functional.util.Either;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+import static de.henninglanghorst.functional.sql.DatabaseOperationFunctions.doInDatabase;
+import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.databaseQuery;
+import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.multipleRowExtraction;
+import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.readOnly;
+import static de.henninglanghorst.functional.sql.DatabaseStatementFunctions.statement;
+import static de.henninglanghorst.functional.sql.DatabaseUpdateFunctions.databaseUpdate;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests class {@link ReplicaRouter} with two in-memory H2 databases.
+ *
+ * @author Henning Langhorst
+ */
+public class ReplicaRouterTest {
+
+    private final Supplier<Connection> primary = h2Database("primary");
+    private final Supplier<Connection> replica = h2Database("replica");
+
+    private final Function<Connection, List<String>> selectNames =
+            databaseQuery(statement("select name from Origin"), multipleRowExtraction(rs -> rs.getString(1)));
+
+    @Before
+    public void setUp() {
+        doInDatabase(primary, databaseUpdate(statement("create table Origin as select 'primary' name")));
+        doInDatabase(replica, databaseUpdate(statement("create table Origin as select 'replica' name")));
+    }
+
+    @Test
+    public void doInDatabaseShouldRunReadOnlyFunctionsOnReplica() {
+        // given
+        final ReplicaRouter router = ReplicaRouter.builder(primary).replica(replica).build();
+
+        // when
+        final Either<List<String>, SQLException> result = router.doInDatabase(readOnly(selectNames));
+
+        // then
+        assertThat(result).isEqualTo(Either.left(singletonList("replica")));
+        assertThat(router.getReplicaOperationCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void doInDatabaseShouldRunOtherFunctionsOnPrimary() {
+        // given
+        final ReplicaRouter router = ReplicaRouter.builder(primary)
+                .replica(replica)
+                .balancing(ReplicaRouter.Balancing.LEAST_OUTSTANDING)
+                .build();
+
+        // when
+        router.doInDatabase(databaseUpdate(statement("insert into Origin values ('update')")));
+        final Either<List<String>, SQLException> result = router.doInDatabase(selectNames);
+
+        // then
+        assertThat(result).isEqualTo(Either.left(asList("primary", "update")));
+        assertThat(router.getPrimaryOperationCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void doInDatabaseShouldRunReadOnlyFunctionsOnPrimaryIfReplicaIsUnavailable() {
+        // given
+        final ReplicaRouter router = ReplicaRouter.builder(primary)
+                .replica(() -> {
+                    throw new SQLException("Replica down");
+                })
+                .build();
+
+        // when
+        final Either<List<String>, SQLException> result = router.doInDatabase(readOnly(selectNames));
+
+        // then
+        assertThat(result).isEqualTo(Either.left(singletonList("primary")));
+    }
+
+    @Test
+    public void doInDatabaseShouldRestoreReadOnlyFlagBeforeClosingReplicaConnection() throws Exception {
+        // given
+        final Connection replicaConnection = mock(Connection.class);
+        final ReplicaRouter router = ReplicaRouter.builder(primary).replica(() -> replicaConnection).build();
+
+        // when
+        final Either<String, SQLException> result = router.doInDatabase(readOnly(c -> "DB result"));
+
+        // then
+        assertThat(result).isEqualTo(Either.left("DB result"));
+        final InOrder inOrder = inOrder(replicaConnection);
+        inOrder.verify(replicaConnection).setReadOnly(true);
+        inOrder.verify(replicaConnection).setReadOnly(false);
+        inOrder.verify(replicaConnection).close();
+    }
+
+    private static Supplier<Connection> h2Database(final String name) {
+        final String url = "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        return () -> DriverManager.getConnection(url, "sa", "");
+    }
+}
@@ -0,0 +1,137 @@
+package de.henninglanghorst.functional.sql;
+
+import de.henninglanghorst.functional.example.model.Person;
+import de.henninglanghorst.functional.sql.function.Function;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.multipleRowExtraction;
+import static de.henninglanghorst.functional.sql.RowMappers.rowMapper;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Matchers.anyString;
+
+/**
+ * Tests class {@link RowMappers}.
+ *
+ * @author Henning Langhorst
+ */
+public class RowMappersTest {
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private ResultSet resultSet;
+
+    @Mock
+    private ResultSetMetaData metaData;
+
+    @Test
+    public void rowMapperShouldBindColumnsToConstructorByIndex() throws Exception {
+        // given
+        givenColumns("BIRTHDAY", "ID", "LASTNAME", "FIRSTNAME");
+        given(resultSet.next()).willReturn(true, true, false);
+        given(resultSet.getInt(2)).willReturn(1, 2);
+        given(resultSet.getString(4)).willReturn("Carl", "Claire");
+        given(resultSet.getString(3)).willReturn("Smith", "Jones");
+        given(resultSet.getDate(1)).willReturn(Date.valueOf("1970-01-01"), Date.valueOf("1980-12-31"));
+
+        // when
+        final List<Person> persons = multipleRowExtraction(rowMapper(Person.class)).apply(resultSet);
+
+        // then
+        assertThat(persons).containsExactly(
+                new Person(1, "Carl", "Smith", LocalDate.of(1970, 1, 1)),
+                new Person(2, "Claire", "Jones", LocalDate.of(1980, 12, 31)));
+        verify(resultSet, times(1)).getMetaData();
+        verify(resultSet, never()).getInt(anyString());
+        verify(resultSet, never()).getString(anyString());
+    }
+
+    @Test
+    public void rowMapperShouldBindColumnsToSetters() throws Exception {
+        // given
+        givenColumns("name", "count");
+        given(resultSet.getString(1)).willReturn("apples");
+        given(resultSet.getLong(2)).willReturn(0L);
+        given(resultSet.wasNull()).willReturn(true);
+
+        // when
+        final Item item = rowMapper(Item.class).apply(resultSet);
+
+        // then
+        assertThat(item.getName()).isEqualTo("apples");
+        assertThat(item.getCount()).isNull();
+    }
+
+    @Test(expected = SQLException.class)
+    public void rowMapperShouldFailIfColumnForConstructorParameterIsMissing() throws Exception {
+        // given
+        givenColumns("ID", "FIRSTNAME");
+        final Function<ResultSet, Person> rowMapper = rowMapper(Person.class);
+
+        // when
+        rowMapper.apply(resultSet);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rowMapperShouldFailFastIfConstructorParameterNamesAreUnknown() {
+        // when
+        rowMapper(Name.class);
+    }
+
+    private void givenColumns(final String... labels) throws SQLException {
+        given(resultSet.getMetaData()).willReturn(metaData);
+        given(metaData.getColumnCount()).willReturn(labels.length);
+        for (int i = 0; i < labels.length; i++) {
+            given(metaData.getColumnLabel(i + 1)).willReturn(labels[i]);
+        }
+    }
+
+    public static final class Item {
+
+        private String name;
+        private Long count;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        public Long getCount() {
+            return count;
+        }
+
+        public void setCount(final Long count) {
+            this.count = count;
+        }
+    }
+
+    public static final class Name {
+
+        private final String firstName;
+        private final String lastName;
+
+        public Name(final String firstName, final String lastName) {
+            this.firstName = firstName;
+            this.lastName = lastName;
+        }
+    }
+}
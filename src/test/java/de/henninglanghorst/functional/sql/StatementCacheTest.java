@@ -0,0 +1,197 @@
+package de.henninglanghorst.functional.sql;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static de.henninglanghorst.functional.sql.DatabaseOperationFunctions.doInDatabase;
+import static de.henninglanghorst.functional.sql.DatabaseUpdateFunctions.databaseUpdate;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests class {@link StatementCache}.
+ *
+ * @author Henning Langhorst
+ */
+public class StatementCacheTest {
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Connection firstHandle;
+
+    @Mock
+    private Connection secondHandle;
+
+    @Mock
+    private PreparedStatement firstStatement;
+
+    @Mock
+    private PreparedStatement secondStatement;
+
+    @Test
+    public void shouldReuseStatementForSameSqlOnSameConnection() throws Exception {
+        // given
+        final StatementCache statementCache = new StatementCache(10);
+        given(connection.prepareStatement("update x set y = ?")).willReturn(firstStatement);
+
+        // when
+        databaseUpdate(statementCache.statement("update x set y = ?", 1)).apply(connection);
+        databaseUpdate(statementCache.statement("update x set y = ?", 2)).apply(connection);
+
+        // then
+        verify(connection, times(1)).prepareStatement("update x set y = ?");
+        verify(firstStatement).setObject(1, 1);
+        verify(firstStatement).setObject(1, 2);
+        verify(firstStatement, times(2)).executeUpdate();
+        verify(firstStatement, times(2)).clearParameters();
+        verify(firstStatement, never()).close();
+        assertThat(statementCache.getHitCount()).isEqualTo(1);
+        assertThat(statementCache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldApplyDeadlineToReusedStatement() throws Exception {
+        // given
+        final StatementCache statementCache = new StatementCache(10);
+        given(connection.prepareStatement("update x set y = ?")).willReturn(firstStatement);
+
+        // when
+        doInDatabase(() -> connection, databaseUpdate(statementCache.statement("update x set y = ?", 1)),
+                Deadline.after(Duration.ofMinutes(1)));
+        doInDatabase(() -> connection, databaseUpdate(statementCache.statement("update x set y = ?", 2)),
+                Deadline.after(Duration.ofMinutes(1)));
+
+        // then
+        assertThat(statementCache.getHitCount()).isEqualTo(1);
+        verify(firstStatement, times(2)).setQueryTimeout(60);
+    }
+
+    @Test
+    public void shouldCloseLeastRecentlyUsedStatementWhenMaximumSizeIsExceeded() throws Exception {
+        // given
+        final StatementCache statementCache = new StatementCache(1);
+        given(connection.prepareStatement("first")).willReturn(firstStatement);
+        given(connection.prepareStatement("second")).willReturn(secondStatement);
+
+        // when
+        statementCache.statement("first").apply(connection).close();
+        statementCache.statement("second").apply(connection).close();
+
+        // then
+        verify(firstStatement).close();
+        verify(secondStatement, never()).close();
+        assertThat(statementCache.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void closedStatementShouldReportClosed() throws Exception {
+        // given
+        final StatementCache statementCache = new StatementCache(1);
+        given(connection.prepareStatement("select 1")).willReturn(firstStatement);
+        final PreparedStatement statement = statementCache.statement("select 1").apply(connection);
+
+        // when
+        statement.close();
+
+        // then
+        assertThat(statement.isClosed()).isTrue();
+    }
+
+    @Test(expected = SQLException.class)
+    public void closedStatementShouldRejectFurtherUse() throws Exception {
+        // given
+        final StatementCache statementCache = new StatementCache(1);
+        given(connection.prepareStatement("select 1")).willReturn(firstStatement);
+        final PreparedStatement statement = statementCache.statement("select 1").apply(connection);
+        statement.close();
+
+        // when
+        statement.executeQuery();
+    }
+
+    @Test
+    public void shouldReuseStatementAcrossHandlesOfSamePhysicalConnection() throws Exception {
+        // given
+        final StatementCache statementCache = new StatementCache(10);
+        givenHandleOf(firstHandle);
+        givenHandleOf(secondHandle);
+        given(firstHandle.prepareStatement("select 1")).willReturn(firstStatement);
+
+        // when
+        statementCache.statement("select 1").apply(firstHandle).close();
+        statementCache.statement("select 1").apply(secondHandle).close();
+
+        // then
+        verify(secondHandle, never()).prepareStatement("select 1");
+        assertThat(statementCache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldDropStatementsOfClosedPhysicalConnectionWhenCacheGrows() throws Exception {
+        // given
+        final StatementCache statementCache = new StatementCache(10);
+        givenHandleOf(firstHandle);
+        given(firstHandle.prepareStatement("select 1")).willReturn(firstStatement, secondStatement);
+        statementCache.statement("select 1").apply(firstHandle).close();
+        given(connection.isClosed()).willReturn(true);
+
+        // when
+        cacheStatementOnOtherConnections(statementCache, 15);
+        statementCache.statement("select 1").apply(firstHandle).close();
+
+        // then
+        verify(connection).isClosed();
+        verify(firstHandle, times(2)).prepareStatement("select 1");
+        assertThat(statementCache.getHitCount()).isEqualTo(0);
+        assertThat(statementCache.getMissCount()).isEqualTo(17);
+    }
+
+    @Test
+    public void shouldNotCheckConnectionsOnCacheMissBeforeCacheGrows() throws Exception {
+        // given
+        final StatementCache statementCache = new StatementCache(10);
+        givenHandleOf(firstHandle);
+        given(firstHandle.prepareStatement("select 1")).willReturn(firstStatement);
+        given(secondHandle.prepareStatement("select 1")).willReturn(secondStatement);
+        statementCache.statement("select 1").apply(firstHandle).close();
+
+        // when
+        cacheStatementOnOtherConnections(statementCache, 13);
+        statementCache.statement("select 1").apply(secondHandle).close();
+
+        // then
+        verify(connection, never()).isClosed();
+        assertThat(statementCache.getMissCount()).isEqualTo(15);
+    }
+
+    private static void cacheStatementOnOtherConnections(final StatementCache statementCache, final int count)
+            throws SQLException {
+        for (int i = 0; i < count; i++) {
+            final Connection otherConnection = mock(Connection.class);
+            given(otherConnection.prepareStatement("select 1")).willReturn(mock(PreparedStatement.class));
+            statementCache.statement("select 1").apply(otherConnection).close();
+        }
+    }
+
+    private void givenHandleOf(final Connection handle) throws SQLException {
+        given(handle.isWrapperFor(Connection.class)).willReturn(true);
+        given(handle.unwrap(Connection.class)).willReturn(connection);
+    }
+}
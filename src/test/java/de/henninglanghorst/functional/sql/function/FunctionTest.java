@@ -0,0 +1,57 @@
+package de.henninglanghorst.functional.sql.function;
+
+import de.henninglanghorst.functional.util.Pair;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the combinators of {@link Function}.
+ *
+ * @author Henning Langhorst
+ */
+public class FunctionTest {
+
+    @Test
+    public void zipShouldApplyBothFunctionsToSameArgument() throws Exception {
+        // given
+        final Function<String, Integer> length = String::length;
+        final Function<String, String> upperCase = String::toUpperCase;
+
+        // when
+        final Pair<Integer, String> result = length.zip(upperCase).apply("abc");
+
+        // then
+        assertThat(result).isEqualTo(Pair.of(3, "ABC"));
+    }
+
+    @Test
+    public void traverseShouldApplyFunctionsInOrderAndStopAtFirstException() throws Exception {
+        // given
+        final List<Integer> appliedItems = new ArrayList<>();
+        final Function<String, List<String>> function = Function.traverse(asList(1, 2, 3), item -> s -> {
+            appliedItems.add(item);
+            if (item == 2) {
+                throw new SQLException("Test");
+            }
+            return s + item;
+        });
+
+        // when
+        try {
+            function.apply("a");
+        } catch (SQLException e) {
+            // expected
+        }
+
+        // then
+        assertThat(appliedItems).containsExactly(1, 2);
+        assertThat(Function.sequence(asList((Function<String, String>) s -> s + 1, s -> s + 2)).apply("a"))
+                .containsExactly("a1", "a2");
+    }
+}
@@ -0,0 +1,111 @@
+package de.henninglanghorst.functional.sql.instrumentation;
+
+import de.henninglanghorst.functional.util.Either;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static de.henninglanghorst.functional.sql.DatabaseOperationFunctions.doInDatabase;
+import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.databaseQuery;
+import static de.henninglanghorst.functional.sql.DatabaseQueryFunctions.multipleRowExtraction;
+import static de.henninglanghorst.functional.sql.DatabaseStatementFunctions.statement;
+import static de.henninglanghorst.functional.sql.DatabaseUpdateFunctions.databaseUpdate;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * Tests class {@link MetricsInstrumentation}.
+ *
+ * @author Henning Langhorst
+ */
+public class MetricsInstrumentationTest {
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement preparedStatement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private MetricsInstrumentation metrics;
+
+    @Before
+    public void setUp() {
+        metrics = InstrumentationRegistry.install(new MetricsInstrumentation());
+    }
+
+    @After
+    public void tearDown() {
+        InstrumentationRegistry.install(Instrumentation.NONE);
+    }
+
+    @Test
+    public void shouldRecordQueryMetricsPerSql() throws Exception {
+        // given
+        given(connection.prepareStatement("select name from Person")).willReturn(preparedStatement);
+        given(preparedStatement.executeQuery()).willReturn(resultSet);
+        given(resultSet.next()).willReturn(true, true, false);
+
+        // when
+        final Either<List<String>, SQLException> result = doInDatabase(() -> connection,
+                databaseQuery(statement("select name from Person"), multipleRowExtraction(rs -> rs.getString(1))));
+
+        // then
+        assertThat(result.isLeft()).isTrue();
+        final MetricsSnapshot snapshot = metrics.snapshot();
+        final StatementMetrics.Snapshot statementSnapshot = snapshot.getStatements().get("select name from Person");
+        assertThat(statementSnapshot.getExecution().getCount()).isEqualTo(1);
+        assertThat(statementSnapshot.getMapping().getCount()).isEqualTo(1);
+        assertThat(statementSnapshot.getRowsFetched()).isEqualTo(2);
+        assertThat(snapshot.getConnectionAcquisition().getCount()).isEqualTo(1);
+        assertThat(snapshot.getSlowestStatement()).contains("select name from Person");
+    }
+
+    @Test
+    public void shouldRecordErrorsPerSqlAndSqlState() throws Exception {
+        // given
+        given(connection.prepareStatement("delete from Person")).willReturn(preparedStatement);
+        given(preparedStatement.executeUpdate()).willThrow(new SQLException("Lock timeout", "HYT00"));
+
+        // when
+        doInDatabase(() -> connection, databaseUpdate(statement("delete from Person")));
+
+        // then
+        final MetricsSnapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.getStatements().get("delete from Person").getErrors()).isEqualTo(1);
+        assertThat(snapshot.getErrorsBySqlState()).containsEntry("HYT00", 1L);
+    }
+
+    @Test
+    public void latencyHistogramPercentilesShouldBeAccurateWithinBucketPrecision() {
+        // given
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        // when
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos * 1000);
+        }
+
+        // then
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount()).isEqualTo(100_000);
+        assertThat(snapshot.getMaxNanos()).isEqualTo(100_000_000);
+        assertThat(snapshot.getPercentileNanos(50)).isBetween(50_000_000L, 53_125_000L);
+        assertThat(snapshot.getPercentileNanos(99)).isBetween(99_000_000L, 100_000_000L);
+    }
+}
@@ -6,9 +6,12 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.function.Consumer;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -62,4 +65,42 @@ public class EitherTest {
         verify(stringConsumer).accept("Hallo");
     }
 
-} 
+    @Test
+    public void mapAndFlatMapShouldTransformLeftValue() throws Exception {
+        final Either<Integer, String> left = Either.left(2);
+        final Either<Integer, String> result = left.map(value -> value * 3).flatMap(value -> Either.left(value + 1));
+        assertThat(result, is(Either.left(7)));
+        assertThat(result.mapRight(String::length), is(Either.left(7)));
+    }
+
+    @Test
+    public void mapAndFlatMapShouldReturnSameRightInstance() throws Exception {
+        final Either<Integer, String> right = Either.right("Hallo");
+        assertThat(right.map(value -> value * 3).flatMap(value -> Either.left(value + 1)), is(sameInstance(right)));
+        assertThat(right.mapRight(String::length), is(Either.right(5)));
+    }
+
+    @Test
+    public void foldAndGetOrElseShouldUseContainedValue() throws Exception {
+        final Either<Integer, String> left = Either.left(2);
+        final Either<Integer, String> right = Either.right("Hallo");
+        assertThat(left.fold(value -> value + 1, String::length), is(3));
+        assertThat(right.fold(value -> value + 1, String::length), is(5));
+        assertThat(left.getOrElse(-1), is(2));
+        assertThat(right.getOrElse(-1), is(-1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void orElseThrowShouldThrowMappedRightValue() throws Exception {
+        final Either<Integer, String> right = Either.right("Hallo");
+        right.orElseThrow(IllegalStateException::new);
+    }
+
+    @Test
+    public void emptyListLeftShouldReturnSharedInstance() throws Exception {
+        final Either<List<Integer>, String> emptyList = Either.emptyListLeft();
+        assertThat(emptyList, is(sameInstance(Either.<List<String>, Integer>emptyListLeft())));
+        assertThat(emptyList.getOrElse(null), is(Collections.<Integer>emptyList()));
+    }
+
+}